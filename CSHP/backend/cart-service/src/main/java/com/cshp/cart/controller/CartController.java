@@ -42,6 +42,16 @@ public class CartController {
         return Result.success();
     }
 
+    /**
+     * 供 order-service 结算后调用，按商品移除该用户的购物车条目
+     * 用户取自 X-Student-Id，与其他接口一致；网关不转发 /internal/ 路径，只能由服务间调用
+     */
+    @DeleteMapping("/internal/items")
+    public Result<Integer> removeProducts(@RequestHeader("X-Student-Id") String userId,
+                                          @RequestParam List<Long> productIds) {
+        return Result.success(cartService.removeProducts(userId, productIds));
+    }
+
     @PutMapping("/{cartId}")
     public Result<Void> updateQuantity(@PathVariable Long cartId,
                                        @RequestParam Integer quantity,
@@ -15,6 +15,10 @@ public class CartDTO {
     private BigDecimal price;
     private String sellerName;
     private Integer quantity;
+    /**
+     * 商品是否仍可购买，商品服务不可用时为 null
+     */
+    private Boolean available;
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
 }
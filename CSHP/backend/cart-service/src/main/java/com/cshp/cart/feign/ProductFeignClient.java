@@ -1,16 +1,26 @@
 package com.cshp.cart.feign;
 
+import com.cshp.cart.feign.dto.ProductBatchFeignDTO;
 import com.cshp.cart.feign.dto.ProductFeignDTO;
 import com.cshp.common.result.Result;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "product-service")
 public interface ProductFeignClient {
 
     @GetMapping("/product/internal/{id}")
     Result<ProductFeignDTO> getProduct(@PathVariable("id") Long id);
+
+    /**
+     * 批量查询商品，不存在的ID在 missingIds 中返回
+     */
+    @GetMapping("/product/internal/batch")
+    Result<ProductBatchFeignDTO> getProducts(@RequestParam("ids") List<Long> ids);
 }
 
 
@@ -0,0 +1,12 @@
+package com.cshp.cart.feign.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductBatchFeignDTO {
+    private List<ProductFeignDTO> products;
+    private List<Long> missingIds;
+}
+
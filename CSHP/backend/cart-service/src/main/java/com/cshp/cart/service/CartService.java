@@ -11,5 +11,9 @@ public interface CartService {
     void removeFromCart(Long cartId, String userId);
     void clearCart(String userId);
     void updateQuantity(Long cartId, Integer quantity, String userId);
+    /**
+     * 下单后移除对应商品，返回删除的条目数
+     */
+    int removeProducts(String userId, List<Long> productIds);
 }
 
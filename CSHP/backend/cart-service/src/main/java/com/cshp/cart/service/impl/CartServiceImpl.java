@@ -5,24 +5,34 @@ import com.cshp.cart.dto.CartAddDTO;
 import com.cshp.cart.dto.CartDTO;
 import com.cshp.cart.entity.Cart;
 import com.cshp.cart.feign.ProductFeignClient;
+import com.cshp.cart.feign.dto.ProductBatchFeignDTO;
 import com.cshp.cart.feign.dto.ProductFeignDTO;
 import com.cshp.cart.mapper.CartMapper;
 import com.cshp.cart.service.CartService;
 import com.cshp.common.exception.BusinessException;
 import com.cshp.common.result.Result;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
 
+    /**
+     * 与商品服务批量查询接口的上限一致
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final CartMapper cartMapper;
     private final ProductFeignClient productFeignClient;
 
@@ -74,7 +84,9 @@ public class CartServiceImpl implements CartService {
         wrapper.eq("user_id", userId);
         wrapper.orderByDesc("update_time");
         List<Cart> carts = cartMapper.selectList(wrapper);
-        return carts.stream().map(this::convertToDTO).collect(Collectors.toList());
+        List<CartDTO> dtos = carts.stream().map(this::convertToDTO).collect(Collectors.toList());
+        refreshProducts(dtos);
+        return dtos;
     }
 
     @Override
@@ -95,6 +107,17 @@ public class CartServiceImpl implements CartService {
         cartMapper.delete(wrapper);
     }
 
+    @Override
+    @Transactional
+    public int removeProducts(String userId, List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return 0;
+        }
+        QueryWrapper<Cart> wrapper = new QueryWrapper<>();
+        wrapper.eq("user_id", userId).in("product_id", productIds);
+        return cartMapper.delete(wrapper);
+    }
+
     @Override
     @Transactional
     public void updateQuantity(Long cartId, Integer quantity, String userId) {
@@ -124,6 +147,59 @@ public class CartServiceImpl implements CartService {
         return result.getData();
     }
 
+    /**
+     * 按批查询刷新购物车中的商品信息，商品服务不可用时保留加入时的快照
+     */
+    private void refreshProducts(List<CartDTO> dtos) {
+        if (dtos.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = dtos.stream().map(CartDTO::getProductId).distinct().collect(Collectors.toList());
+        Map<Long, ProductFeignDTO> products = loadProducts(productIds);
+        if (products == null) {
+            return;
+        }
+        for (CartDTO dto : dtos) {
+            ProductFeignDTO product = products.get(dto.getProductId());
+            if (product == null) {
+                dto.setAvailable(false);
+                continue;
+            }
+            dto.setProductTitle(product.getTitle());
+            dto.setProductImage(getFirstImage(product.getImages()));
+            dto.setPrice(product.getPrice());
+            dto.setAvailable(product.getStatus() == null || product.getStatus() == 0);
+        }
+    }
+
+    /**
+     * 批量查询商品，每次最多 MAX_BATCH_SIZE 个，任一批失败时返回 null
+     */
+    private Map<Long, ProductFeignDTO> loadProducts(List<Long> productIds) {
+        try {
+            Map<Long, ProductFeignDTO> products = new HashMap<>();
+            for (int from = 0; from < productIds.size(); from += MAX_BATCH_SIZE) {
+                List<Long> batch = productIds.subList(from, Math.min(from + MAX_BATCH_SIZE, productIds.size()));
+                Result<ProductBatchFeignDTO> result = productFeignClient.getProducts(batch);
+                if (result == null || result.getCode() != 200 || result.getData() == null) {
+                    log.warn("批量查询商品失败: {}", result == null ? null : result.getMessage());
+                    return null;
+                }
+                List<ProductFeignDTO> found = result.getData().getProducts();
+                if (found == null) {
+                    continue;
+                }
+                for (ProductFeignDTO product : found) {
+                    products.put(product.getId(), product);
+                }
+            }
+            return products;
+        } catch (Exception e) {
+            log.warn("批量查询商品失败", e);
+            return null;
+        }
+    }
+
     private String getFirstImage(String images) {
         if (images == null || images.isEmpty()) {
             return null;
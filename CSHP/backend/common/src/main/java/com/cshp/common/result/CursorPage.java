@@ -0,0 +1,65 @@
+package com.cshp.common.result;
+
+import com.cshp.common.util.CursorUtil;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * nextCursor 为下一页的续传令牌，hasMore 为 false 时 nextCursor 为 null
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<T> records;
+    private String nextCursor;
+    private Boolean hasMore;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> records, String nextCursor) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    public static <T> CursorPage<T> empty() {
+        return new CursorPage<>(Collections.<T>emptyList(), null);
+    }
+
+    /**
+     * 根据按 (create_time DESC, id DESC) 查询出的 size + 1 条记录构建分页结果
+     * 多出的一条只用于判断是否还有下一页，不会返回给调用方
+     *
+     * @param rows      查询结果，最多 size + 1 条
+     * @param size      页大小
+     * @param timeFn    取排序时间
+     * @param idFn      取主键
+     * @param converter 实体到 DTO 的转换
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size,
+                                          Function<E, LocalDateTime> timeFn,
+                                          Function<E, Long> idFn,
+                                          Function<E, T> converter) {
+        boolean hasMore = rows.size() > size;
+        List<E> pageRows = hasMore ? rows.subList(0, size) : rows;
+        List<T> records = new ArrayList<>(pageRows.size());
+        for (E row : pageRows) {
+            records.add(converter.apply(row));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            E last = pageRows.get(pageRows.size() - 1);
+            nextCursor = CursorUtil.encode(timeFn.apply(last), idFn.apply(last));
+        }
+        return new CursorPage<>(records, nextCursor);
+    }
+}
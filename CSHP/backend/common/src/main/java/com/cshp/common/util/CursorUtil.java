@@ -0,0 +1,159 @@
+package com.cshp.common.util;
+
+import com.cshp.common.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 游标分页工具类
+ * 游标对 (create_time, id) 做 Base64 编码，对客户端不透明
+ */
+public class CursorUtil {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String SEPARATOR = "|";
+
+    private static final String OFFSET_PREFIX = "offset" + SEPARATOR;
+
+    private static final String KEY_PREFIX = "key" + SEPARATOR;
+
+    /**
+     * 规范化页大小，未传时使用默认值，超过上限时截断
+     */
+    public static int normalizeSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 将最后一条记录的 (create_time, id) 编码为游标
+     */
+    public static String encode(LocalDateTime time, Long id) {
+        String raw = time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，为空表示第一页，返回字段均为 null 的游标
+     *
+     * @throws BusinessException 游标格式不正确时抛出
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return new Cursor(null, null);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            LocalDateTime time = LocalDateTime.parse(raw.substring(0, index));
+            Long id = Long.valueOf(raw.substring(index + 1));
+            return new Cursor(time, id);
+        } catch (Exception e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 按相关度排序的结果没有稳定的 (create_time, id) 顺序，改用偏移量作为游标
+     */
+    public static String encodeOffset(int offset) {
+        String raw = OFFSET_PREFIX + offset;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析偏移量游标，为空表示第一页，返回 0
+     *
+     * @throws BusinessException 游标格式不正确时抛出
+     */
+    public static int decodeOffset(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(OFFSET_PREFIX)) {
+                throw new IllegalArgumentException(raw);
+            }
+            int offset = Integer.parseInt(raw.substring(OFFSET_PREFIX.length()));
+            if (offset < 0) {
+                throw new IllegalArgumentException(raw);
+            }
+            return offset;
+        } catch (Exception e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 是否为偏移量游标，同一接口在两种分页方式间切换时用于识别另一种方式签发的游标
+     */
+    public static boolean isOffset(String token) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return raw.startsWith(OFFSET_PREFIX);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 按其他列排序（如价格）时，将最后一条记录的 (排序值, id) 编码为游标
+     */
+    public static String encodeKey(String key, Long id) {
+        String raw = KEY_PREFIX + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析排序值游标，为空表示第一页，返回字段均为 null 的游标
+     *
+     * @throws BusinessException 游标格式不正确时抛出
+     */
+    public static KeyCursor decodeKey(String token) {
+        if (token == null || token.isEmpty()) {
+            return new KeyCursor(null, null);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(KEY_PREFIX)) {
+                throw new IllegalArgumentException(raw);
+            }
+            int index = raw.lastIndexOf(SEPARATOR);
+            String key = raw.substring(KEY_PREFIX.length(), index);
+            Long id = Long.valueOf(raw.substring(index + 1));
+            return new KeyCursor(key, id);
+        } catch (Exception e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class KeyCursor {
+        private String key;
+        private Long id;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Cursor {
+        private LocalDateTime time;
+        private Long id;
+    }
+}
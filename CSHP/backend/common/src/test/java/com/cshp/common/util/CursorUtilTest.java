@@ -0,0 +1,66 @@
+package com.cshp.common.util;
+
+import com.cshp.common.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorUtilTest {
+
+    @Test
+    void shouldRoundTripCursor() {
+        LocalDateTime time = LocalDateTime.of(2025, 11, 22, 10, 30, 15);
+        String token = CursorUtil.encode(time, 42L);
+
+        CursorUtil.Cursor cursor = CursorUtil.decode(token);
+        assertEquals(time, cursor.getTime());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void shouldTreatEmptyCursorAsFirstPage() {
+        CursorUtil.Cursor cursor = CursorUtil.decode(null);
+        assertNull(cursor.getTime());
+        assertNull(cursor.getId());
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThrows(BusinessException.class, () -> CursorUtil.decode("not-a-cursor"));
+    }
+
+    @Test
+    void shouldRoundTripOffsetCursor() {
+        assertEquals(0, CursorUtil.decodeOffset(null));
+        assertEquals(40, CursorUtil.decodeOffset(CursorUtil.encodeOffset(40)));
+        String timeCursor = CursorUtil.encode(LocalDateTime.of(2025, 1, 1, 0, 0), 1L);
+        assertThrows(BusinessException.class, () -> CursorUtil.decodeOffset(timeCursor));
+    }
+
+    @Test
+    void shouldRecognizeOffsetCursor() {
+        assertTrue(CursorUtil.isOffset(CursorUtil.encodeOffset(20)));
+        assertFalse(CursorUtil.isOffset(CursorUtil.encode(LocalDateTime.of(2025, 1, 1, 0, 0), 1L)));
+        assertFalse(CursorUtil.isOffset(null));
+        assertFalse(CursorUtil.isOffset("not a cursor!"));
+    }
+
+    @Test
+    void shouldRoundTripKeyCursor() {
+        CursorUtil.KeyCursor cursor = CursorUtil.decodeKey(CursorUtil.encodeKey("12.50", 7L));
+        assertEquals("12.50", cursor.getKey());
+        assertEquals(7L, cursor.getId());
+        assertNull(CursorUtil.decodeKey("").getKey());
+        assertThrows(BusinessException.class, () -> CursorUtil.decodeKey(CursorUtil.encodeOffset(20)));
+    }
+
+    @Test
+    void shouldClampPageSize() {
+        assertEquals(CursorUtil.DEFAULT_PAGE_SIZE, CursorUtil.normalizeSize(null));
+        assertEquals(CursorUtil.DEFAULT_PAGE_SIZE, CursorUtil.normalizeSize(0));
+        assertEquals(CursorUtil.MAX_PAGE_SIZE, CursorUtil.normalizeSize(10000));
+        assertEquals(5, CursorUtil.normalizeSize(5));
+    }
+}
@@ -1,6 +1,7 @@
 package com.cshp.gateway.filter;
 
 import com.cshp.common.util.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
@@ -16,14 +17,16 @@ import reactor.core.publisher.Mono;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
+@Slf4j
 @Component
 public class AuthFilter implements GlobalFilter, Ordered {
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    // 白名单路径，包含登录、注册等无需认证的接口
+    // 白名单路径，登录、注册等无需认证的接口，按完整路径匹配
     private static final List<String> WHITE_LIST = Arrays.asList(
             "/user-service/api/user/login",
             "/user-service/api/user/register",
@@ -33,65 +36,103 @@ public class AuthFilter implements GlobalFilter, Ordered {
             "/api/user/register"
     );
 
-    private boolean isWhitelisted(String path) {
-        return WHITE_LIST.stream().anyMatch(path::startsWith);
+    // 上传图片的静态访问，只放行 GET/HEAD
+    private static final String UPLOADS_PREFIX = "/uploads/";
+
+    // 静态文件路径只允许常规字符，排除 ..、;、\ 和 % 等下游可能再次解析的写法
+    private static final Pattern SAFE_UPLOAD_PATH = Pattern.compile("/uploads(/[A-Za-z0-9_\\-]+(\\.[A-Za-z0-9]+)?)+");
+
+    // 由网关根据 Token 设置的用户头，客户端传入的一律丢弃
+    private static final String[] IDENTITY_HEADERS = {"X-Student-Id", "X-User-Id"};
+
+    // 服务间调用的接口路径段，信任调用方传入的用户，不对外转发
+    private static final String INTERNAL_SEGMENT = "internal";
+
+    /**
+     * 任一路径段（去掉 ; 之后的矩阵参数）为 internal 即视为内部接口，下游匹配路径时同样会去掉矩阵参数
+     */
+    private boolean isInternal(String path) {
+        for (String segment : path.split("/")) {
+            int semicolon = segment.indexOf(';');
+            String name = semicolon >= 0 ? segment.substring(0, semicolon) : segment;
+            if (INTERNAL_SEGMENT.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isWhitelisted(ServerHttpRequest request, String path) {
+        if (WHITE_LIST.contains(path)) {
+            return true;
+        }
+        if (!path.startsWith(UPLOADS_PREFIX)) {
+            return false;
+        }
+        String method = request.getMethodValue();
+        return (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method))
+                && SAFE_UPLOAD_PATH.matcher(path).matches();
     }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    for (String name : IDENTITY_HEADERS) {
+                        headers.remove(name);
+                    }
+                })
+                .build();
+        exchange = exchange.mutate().request(request).build();
         String path = request.getURI().getPath();
-        System.out.println("处理请求路径: " + path);
+        log.debug("处理请求路径: {}", path);
+
+        // 内部接口不经网关暴露
+        if (isInternal(path)) {
+            log.debug("内部接口，拒绝外部访问: {}", path);
+            return reject(exchange, HttpStatus.NOT_FOUND);
+        }
 
         // 预检请求直接放行
         if (HttpMethod.OPTIONS.matches(request.getMethodValue())) {
             return chain.filter(exchange);
         }
 
-        // 白名单直接放行 - 登录和注册接口无需Token验证
-        if (isWhitelisted(path)) {
-            System.out.println("路径在白名单中，直接放行: " + path);
+        // 白名单直接放行 - 登录、注册接口和图片访问无需Token验证
+        if (isWhitelisted(request, path)) {
+            log.debug("路径在白名单中，直接放行: {}", path);
             return chain.filter(exchange);
         }
 
         // 非白名单请求需要Token验证
         String token = request.getHeaders().getFirst("Authorization");
-        System.out.println("Authorization头: " + token);
-        
+
         // 检查Token是否存在
         if (!StringUtils.hasText(token)) {
-            System.out.println("Token不存在，拒绝访问");
-            ServerHttpResponse response = exchange.getResponse();
-            response.setStatusCode(HttpStatus.UNAUTHORIZED);
-            return response.setComplete();
+            log.debug("Token不存在，拒绝访问: {}", path);
+            return unauthorized(exchange);
         }
 
         // 处理Token格式，支持带Bearer前缀和不带前缀的情况
-        if (token != null && token.startsWith("Bearer ")) {
+        if (token.startsWith("Bearer ")) {
             token = token.substring(7);
         }
-        System.out.println("处理后的Token: " + token);
 
         // 验证Token
         try {
             // 先获取Claims，验证token格式和有效性
             if (!jwtUtil.validateToken(token, "")) {
-                System.out.println("Token格式无效或已过期，拒绝访问");
-                ServerHttpResponse response = exchange.getResponse();
-                response.setStatusCode(HttpStatus.UNAUTHORIZED);
-                return response.setComplete();
+                log.debug("Token格式无效或已过期，拒绝访问: {}", path);
+                return unauthorized(exchange);
             }
-            
+
             // 获取studentId
             String studentId = jwtUtil.getStudentIdFromToken(token);
-            System.out.println("从Token解析的studentId: " + studentId);
-            
+
             // 检查是否成功获取到studentId
             if (studentId == null || studentId.isEmpty()) {
-                System.out.println("无法从Token中获取有效studentId，拒绝访问");
-                ServerHttpResponse response = exchange.getResponse();
-                response.setStatusCode(HttpStatus.UNAUTHORIZED);
-                return response.setComplete();
+                log.debug("无法从Token中获取有效studentId，拒绝访问: {}", path);
+                return unauthorized(exchange);
             }
 
             // 将用户信息添加到请求头，转发给下游服务
@@ -99,21 +140,27 @@ public class AuthFilter implements GlobalFilter, Ordered {
                     .header("X-Student-Id", studentId)
                     .header("X-User-Id", studentId) // 同时设置X-User-Id
                     .build();
-            
-            System.out.println("Token验证通过，转发请求");
+
+            log.debug("Token验证通过，转发请求: {}, studentId: {}", path, studentId);
             return chain.filter(exchange.mutate().request(modifiedRequest).build());
         } catch (Exception e) {
-            System.out.println("Token验证异常: " + e.getMessage());
-            e.printStackTrace(); // 打印完整堆栈以便调试
-            ServerHttpResponse response = exchange.getResponse();
-            response.setStatusCode(HttpStatus.UNAUTHORIZED);
-            return response.setComplete();
+            log.warn("Token验证异常: {}", e.getMessage(), e);
+            return unauthorized(exchange);
         }
     }
 
+    private Mono<Void> unauthorized(ServerWebExchange exchange) {
+        return reject(exchange, HttpStatus.UNAUTHORIZED);
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        return response.setComplete();
+    }
+
     @Override
     public int getOrder() {
         return -100;
     }
 }
-
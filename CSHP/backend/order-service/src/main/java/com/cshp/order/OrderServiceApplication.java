@@ -5,10 +5,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.cshp")
 @EnableDiscoveryClient
 @EnableFeignClients
+@EnableScheduling
 @MapperScan("com.cshp.order.mapper")
 public class OrderServiceApplication {
     public static void main(String[] args) {
@@ -0,0 +1,274 @@
+package com.cshp.order.component;
+
+import com.cshp.common.exception.BusinessException;
+import com.cshp.order.entity.OrderIdempotency;
+import com.cshp.order.mapper.OrderIdempotencyMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键处理（Idempotency-Key 请求头）
+ * 同一用户的同一个键只执行一次业务逻辑，重复请求直接返回第一次的成功结果：
+ * 1. 本实例内正在执行的请求登记在 inFlight，并发的重复请求等待同一个结果，不再重复执行
+ * 2. 已完成的结果保存在有容量上限、按 TTL 过期的本地缓存
+ * 3. order_idempotency 表作为兜底，覆盖多实例和本地缓存淘汰的情况，执行前先插入“处理中”记录占位
+ * 只缓存成功结果，业务失败时删除占位记录，允许用相同的键重试
+ */
+@Slf4j
+@Component
+public class IdempotencyGuard {
+
+    private static final int STATE_PROCESSING = 0;
+
+    private static final int STATE_COMPLETED = 1;
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final int CLEANUP_BATCH = 500;
+
+    @Autowired
+    private OrderIdempotencyMapper idempotencyMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order.idempotency.ttl:86400000}")
+    private long ttl;
+
+    @Value("${order.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${order.idempotency.wait-timeout:10000}")
+    private long waitTimeout;
+
+    @Value("${order.idempotency.processing-timeout:60000}")
+    private long processingTimeout;
+
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 按写入顺序淘汰，所有条目 TTL 相同，最早写入的也最早过期
+     */
+    private Map<String, Completed> completed;
+
+    @PostConstruct
+    public void init() {
+        completed = new LinkedHashMap<String, Completed>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * key 为空时直接执行；fingerprint 标识操作和目标，同一个键用于不同请求时拒绝
+     */
+    public <T> T execute(String userId, String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        if (!StringUtils.hasText(key)) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(400, "Idempotency-Key 长度不能超过 " + MAX_KEY_LENGTH);
+        }
+        String cacheKey = userId + ":" + key;
+
+        Completed done = getCompleted(cacheKey);
+        if (done != null) {
+            checkFingerprint(done.fingerprint, fingerprint);
+            return read(done.response, type);
+        }
+
+        InFlight mine = new InFlight(fingerprint);
+        InFlight running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            checkFingerprint(running.fingerprint, fingerprint);
+            return read(await(running), type);
+        }
+
+        try {
+            T result = claimAndRun(userId, key, cacheKey, fingerprint, type, action);
+            mine.future.complete(write(result));
+            return result;
+        } catch (RuntimeException e) {
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private <T> T claimAndRun(String userId, String key, String cacheKey, String fingerprint,
+                              Class<T> type, Supplier<T> action) {
+        OrderIdempotency claim = null;
+        // 占位记录过期或刚被删除时再抢占一次
+        for (int attempt = 0; attempt < 2 && claim == null; attempt++) {
+            OrderIdempotency row = new OrderIdempotency();
+            row.setUserId(userId);
+            row.setIdemKey(key);
+            row.setFingerprint(fingerprint);
+            row.setState(STATE_PROCESSING);
+            row.setCreateTime(LocalDateTime.now());
+            row.setExpireTime(LocalDateTime.now().plus(processingTimeout, ChronoUnit.MILLIS));
+            try {
+                idempotencyMapper.insert(row);
+                claim = row;
+            } catch (DuplicateKeyException e) {
+                OrderIdempotency existing = idempotencyMapper.selectByKey(userId, key);
+                if (existing == null) {
+                    continue;
+                }
+                if (existing.getExpireTime().isBefore(LocalDateTime.now())) {
+                    idempotencyMapper.deleteExpiredById(existing.getId(), LocalDateTime.now());
+                    continue;
+                }
+                checkFingerprint(existing.getFingerprint(), fingerprint);
+                if (existing.getState() == STATE_COMPLETED) {
+                    putCompleted(cacheKey, existing.getFingerprint(), existing.getResponse());
+                    return read(existing.getResponse(), type);
+                }
+                throw new BusinessException(409, "请求正在处理中，请稍后重试");
+            }
+        }
+        if (claim == null) {
+            throw new BusinessException(409, "请求正在处理中，请稍后重试");
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            idempotencyMapper.deleteById(claim.getId());
+            throw e;
+        }
+        String response = write(result);
+        putCompleted(cacheKey, fingerprint, response);
+        try {
+            idempotencyMapper.markCompleted(claim.getId(), response,
+                    LocalDateTime.now().plus(ttl, ChronoUnit.MILLIS));
+        } catch (RuntimeException e) {
+            // 业务已提交，记录失败只影响跨实例去重，不向调用方报错
+            log.warn("幂等结果落库失败: {}", cacheKey, e);
+        }
+        return result;
+    }
+
+    private String await(InFlight running) {
+        try {
+            return running.future.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BusinessException("请求处理失败");
+        } catch (TimeoutException e) {
+            throw new BusinessException(409, "请求正在处理中，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("请求处理被中断");
+        }
+    }
+
+    private void checkFingerprint(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new BusinessException(422, "Idempotency-Key 已用于其他请求");
+        }
+    }
+
+    private Completed getCompleted(String cacheKey) {
+        synchronized (completed) {
+            Completed done = completed.get(cacheKey);
+            if (done != null && done.expireAt < System.currentTimeMillis()) {
+                completed.remove(cacheKey);
+                return null;
+            }
+            return done;
+        }
+    }
+
+    private void putCompleted(String cacheKey, String fingerprint, String response) {
+        synchronized (completed) {
+            completed.put(cacheKey, new Completed(fingerprint, response, System.currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * 清理本地缓存和表中的过期记录
+     */
+    @Scheduled(fixedDelayString = "${order.idempotency.cleanup-interval:600000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        synchronized (completed) {
+            Iterator<Completed> it = completed.values().iterator();
+            while (it.hasNext() && it.next().expireAt < now) {
+                it.remove();
+            }
+        }
+        int deleted;
+        int total = 0;
+        do {
+            deleted = idempotencyMapper.deleteExpired(LocalDateTime.now(), CLEANUP_BATCH);
+            total += deleted;
+        } while (deleted == CLEANUP_BATCH);
+        if (total > 0) {
+            log.info("清理过期幂等记录 {} 条", total);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("幂等结果序列化失败", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("幂等结果反序列化失败", e);
+        }
+    }
+
+    private static class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static class Completed {
+        private final String fingerprint;
+        private final String response;
+        private final long expireAt;
+
+        Completed(String fingerprint, String response, long expireAt) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.cshp.order.component;
+
+import com.cshp.common.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 订单号生成（Snowflake）
+ * 64 位 ID = 41 位毫秒时间戳（相对 EPOCH）| 10 位节点号 | 12 位毫秒内序列号
+ * 时间戳和序列号合并保存在一个 AtomicLong 中，CAS 推进，无锁且单节点内严格递增：
+ * 同一毫秒或时钟回拨时沿用上次的时间戳并递增序列号，序列号用完时进位到下一毫秒，
+ * 逻辑时间领先系统时钟超过 max-clock-backward 时拒绝生成，等待时钟追上
+ * 订单号为 ORD + 19 位定长十进制，字典序与生成顺序一致
+ */
+@Slf4j
+@Component
+public class OrderNoGenerator {
+
+    /**
+     * 2024-01-01T00:00:00Z
+     */
+    static final long EPOCH = 1704067200000L;
+
+    static final int WORKER_BITS = 10;
+
+    static final int SEQUENCE_BITS = 12;
+
+    static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = WORKER_BITS + SEQUENCE_BITS;
+
+    private static final String PREFIX = "ORD";
+
+    private static final int DIGITS = 19;
+
+    private final long workerBits;
+
+    private final long maxClockBackward;
+
+    private final LongSupplier clock;
+
+    /**
+     * 高位为相对时间戳，低 12 位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public OrderNoGenerator(@Value("${order.no.worker-id:-1}") long workerId,
+                            @Value("${order.no.max-clock-backward:5000}") long maxClockBackward,
+                            @Value("${server.port:8083}") int serverPort) {
+        this(workerId >= 0 ? workerId : deriveWorkerId(serverPort), maxClockBackward, System::currentTimeMillis);
+        if (workerId < 0) {
+            log.warn("未配置 order.no.worker-id，按主机地址和端口推导节点号 {}，多实例部署时请显式配置", workerBits >>> SEQUENCE_BITS);
+        }
+    }
+
+    OrderNoGenerator(long workerId, long maxClockBackward, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("节点号必须在 0-" + MAX_WORKER_ID + " 之间: " + workerId);
+        }
+        this.workerBits = workerId << SEQUENCE_BITS;
+        this.maxClockBackward = maxClockBackward;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        for (;;) {
+            long prev = state.get();
+            long now = clock.getAsLong() - EPOCH;
+            long next;
+            if (now > (prev >>> SEQUENCE_BITS)) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 序列号溢出时自然进位到时间戳部分
+                next = prev + 1;
+                if ((next >>> SEQUENCE_BITS) - now > maxClockBackward) {
+                    throw new BusinessException(503, "系统时钟回拨，暂时无法生成订单号");
+                }
+            }
+            if (state.compareAndSet(prev, next)) {
+                return (next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT | workerBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public String nextOrderNo() {
+        long id = nextId();
+        char[] buf = new char[PREFIX.length() + DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), buf, 0);
+        for (int i = buf.length - 1; i >= PREFIX.length(); i--) {
+            buf[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+        return new String(buf);
+    }
+
+    private static long deriveWorkerId(int serverPort) {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostAddress();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return ((host + ":" + serverPort).hashCode() & 0x7fffffff) % (MAX_WORKER_ID + 1);
+    }
+}
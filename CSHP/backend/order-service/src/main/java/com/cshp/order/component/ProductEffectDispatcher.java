@@ -0,0 +1,286 @@
+package com.cshp.order.component;
+
+import com.cshp.common.result.Result;
+import com.cshp.order.entity.OrderOutbox;
+import com.cshp.order.event.ProductEffectQueuedEvent;
+import com.cshp.order.feign.ProductFeignClient;
+import com.cshp.order.feign.dto.ProductFeignDTO;
+import com.cshp.order.mapper.OrderMapper;
+import com.cshp.order.mapper.OrderOutboxMapper;
+import com.cshp.order.mapper.ProductReservationMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 商品侧副作用投递（订单发件箱中继）
+ * 订单状态变更与 order_outbox 记录在同一事务提交，本组件在事务外调用 product-service，
+ * 订单事务不再持有连接和行锁等待跨服务调用
+ * - 同一商品的副作用按 id 顺序逐条投递，前一条未成功前不投递后一条；
+ *   商品有投递失败的记录时后续记录全部暂停，人工处理后把失败记录标记为已投递或删除即可恢复
+ * - 按批读取和认领，认领时写入 token 和租约，多实例不会重复投递同一条记录；
+ *   逐条投递前按 token 续约，租约只需覆盖单条投递，续约失败说明已被其他实例接手，跳过该条
+ * - 网络错误和 5xx 按指数退避重试，超过最大次数或 4xx 时标记失败
+ * - 副作用本身可重复执行：设置状态是幂等的，SOLD 的条件更新冲突时再核对是否已由本订单占有
+ */
+@Slf4j
+@Component
+public class ProductEffectDispatcher {
+
+    private static final int CLEANUP_BATCH = 500;
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    @Autowired
+    private OrderOutboxMapper outboxMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private ProductReservationMapper reservationMapper;
+
+    @Autowired
+    private ProductFeignClient productFeignClient;
+
+    @Value("${order.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${order.outbox.lease:30000}")
+    private long lease;
+
+    @Value("${order.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${order.outbox.base-backoff:1000}")
+    private long baseBackoff;
+
+    @Value("${order.outbox.max-backoff:300000}")
+    private long maxBackoff;
+
+    @Value("${order.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "product-effect-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 订单事务提交后立即触发一次投递
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueued(ProductEffectQueuedEvent event) {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 关闭中，留给下次启动后的轮询
+        }
+    }
+
+    /**
+     * 兜底轮询，处理重试到期和提交后触发丢失的记录
+     */
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval:2000}")
+    public void poll() {
+        drain();
+    }
+
+    /**
+     * 同一时刻只有一个线程投递，投递中收到的新请求由当前线程再跑一轮
+     */
+    void drain() {
+        requested.set(true);
+        while (requested.get() && dispatchLock.tryLock()) {
+            try {
+                requested.set(false);
+                while (dispatchBatch() >= batchSize) {
+                    // 认领满一批说明可能还有积压
+                }
+            } catch (RuntimeException e) {
+                log.warn("商品副作用投递异常", e);
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 投递一批，返回本批认领的记录数
+     */
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderOutbox> pending = outboxMapper.selectPending(now, batchSize);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Long> eligible = new ArrayList<>(pending.size());
+        for (OrderOutbox row : pending) {
+            eligible.add(row.getId());
+        }
+        String token = UUID.randomUUID().toString();
+        outboxMapper.claim(eligible, token, now, now.plus(lease, ChronoUnit.MILLIS));
+        List<OrderOutbox> claimed = outboxMapper.selectByClaimToken(token);
+
+        for (OrderOutbox row : claimed) {
+            LocalDateTime leaseUntil = LocalDateTime.now().plus(lease, ChronoUnit.MILLIS);
+            if (outboxMapper.renewLease(row.getId(), token, leaseUntil) == 0) {
+                log.warn("商品副作用租约已被其他实例接手，跳过: outbox={}", row.getId());
+                continue;
+            }
+            int attempts = row.getAttempts() + 1;
+            try {
+                deliver(row);
+                // 逐条确认，不等整批结束，避免前面已投递的记录租约过期后被重复投递
+                outboxMapper.markDelivered(Collections.singletonList(row.getId()));
+            } catch (PermanentFailure e) {
+                log.error("商品副作用投递失败，需人工处理: outbox={}, order={}, product={}, effect={}, {}",
+                        row.getId(), row.getOrderId(), row.getProductId(), row.getEffect(), e.getMessage());
+                outboxMapper.markFailed(row.getId(), attempts, truncate(e.getMessage()));
+            } catch (RuntimeException e) {
+                if (attempts >= maxAttempts) {
+                    log.error("商品副作用重试 {} 次仍失败: outbox={}, product={}, effect={}",
+                            attempts, row.getId(), row.getProductId(), row.getEffect(), e);
+                    outboxMapper.markFailed(row.getId(), attempts, truncate(e.getMessage()));
+                } else {
+                    long backoff = Math.min(maxBackoff, baseBackoff << Math.min(attempts - 1, 20));
+                    log.warn("商品副作用投递失败，{} 毫秒后重试: outbox={}, product={}, effect={}, {}",
+                            backoff, row.getId(), row.getProductId(), row.getEffect(), e.getMessage());
+                    outboxMapper.markRetry(row.getId(), attempts,
+                            LocalDateTime.now().plus(backoff, ChronoUnit.MILLIS), truncate(e.getMessage()));
+                }
+            }
+        }
+        return claimed.size();
+    }
+
+    private void deliver(OrderOutbox row) {
+        Long productId = row.getProductId();
+        switch (OrderOutbox.Effect.valueOf(row.getEffect())) {
+            case SOLD:
+                deliverSold(row);
+                break;
+            case RELEASED:
+                check(productFeignClient.updateStatus(productId, 0));
+                break;
+            case SHIPPED:
+                check(productFeignClient.updateShipped(productId, 1));
+                break;
+            case REFUNDED:
+                check(productFeignClient.updateStatus(productId, 0));
+                check(productFeignClient.updateShipped(productId, 0));
+                break;
+            default:
+                throw new PermanentFailure("未知的副作用类型: " + row.getEffect());
+        }
+    }
+
+    /**
+     * 在售 -> 已售出的条件更新，冲突时区分两种情况：
+     * 商品已被其他已付款订单占有时补偿本订单（已付款 -> 已退款），
+     * 否则是本条记录之前已投递成功但响应丢失，视为已完成
+     */
+    private void deliverSold(OrderOutbox row) {
+        Result<Void> result = productFeignClient.compareAndSetStatus(row.getProductId(), 0, 1);
+        if (result != null && result.getCode() == 409) {
+            ProductFeignDTO product = loadProduct(row.getProductId());
+            boolean ours = product.getStatus() != null && product.getStatus() == 1
+                    && orderMapper.countHoldingOrders(row.getProductId(), row.getOrderId()) == 0;
+            if (!ours && orderMapper.updateStatusIfCurrent(row.getOrderId(), 1, 6) > 0) {
+                reservationMapper.release(row.getProductId(), row.getOrderId());
+                log.warn("商品 {} 已被其他买家购买，订单 {} 已自动退款", row.getProductId(), row.getOrderId());
+            }
+            return;
+        }
+        check(result);
+    }
+
+    private ProductFeignDTO loadProduct(Long productId) {
+        Result<ProductFeignDTO> result = productFeignClient.getProduct(productId);
+        check(result);
+        if (result.getData() == null) {
+            throw new PermanentFailure("商品不存在");
+        }
+        return result.getData();
+    }
+
+    private void check(Result<?> result) {
+        if (result == null) {
+            throw new IllegalStateException("商品服务无响应");
+        }
+        int code = result.getCode();
+        if (code == 200) {
+            return;
+        }
+        if (code >= 400 && code < 500) {
+            throw new PermanentFailure(code + " " + result.getMessage());
+        }
+        throw new IllegalStateException(code + " " + result.getMessage());
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Scheduled(cron = "${order.outbox.cleanup-cron:0 30 3 * * ?}")
+    public void cleanup() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = outboxMapper.deleteDeliveredBefore(before, CLEANUP_BATCH);
+            total += deleted;
+        } while (deleted == CLEANUP_BATCH);
+        if (total > 0) {
+            log.info("清理已投递的商品副作用记录 {} 条", total);
+        }
+    }
+
+    /**
+     * 重试也不会成功的错误，如商品不存在或参数错误
+     */
+    private static class PermanentFailure extends RuntimeException {
+        PermanentFailure(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.cshp.order.component;
+
+import com.cshp.order.entity.Order;
+import com.cshp.order.event.OrderCreatedEvent;
+import com.cshp.order.mapper.OrderMapper;
+import com.cshp.order.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 待付款订单超时取消（哈希时间轮）
+ * 每个待付款订单在时间轮上登记一个付款截止时间，槽位数固定，每个刻度只检查当前槽位，
+ * 登记和到期都是 O(1)，几十万个截止时间也只占用一个调度线程，不做周期性全表扫描
+ * - 新订单在创建事务提交后登记，启动时按 id 分页读取待付款订单重建
+ * - 到期订单按批交给 OrderService 条件取消，期间已付款或已取消的订单不受影响
+ * - 订单付款或取消时不从时间轮移除，到期时由条件更新跳过
+ */
+@Slf4j
+@Component
+public class UnpaidOrderExpirer {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Value("${order.pay-timeout:1800000}")
+    private long payTimeout;
+
+    @Value("${order.expiry.tick:1000}")
+    private long tickMillis;
+
+    @Value("${order.expiry.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${order.expiry.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 其他线程登记的截止时间先进入队列，由时间轮线程放入槽位，槽位只由时间轮线程访问
+     */
+    private final Queue<Deadline> incoming = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /**
+     * 毫秒时钟，测试中替换为可控时钟
+     */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private Deadline[] buckets;
+
+    private int mask;
+
+    private long startTime;
+
+    private long tick;
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void init() {
+        initWheel();
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "unpaid-order-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    void initWheel() {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        buckets = new Deadline[size];
+        mask = size - 1;
+        startTime = clock.getAsLong();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        schedule(event.getOrderId(), event.getCreateTime());
+    }
+
+    /**
+     * 启动时重建，只读待付款订单；与新订单的登记重复时到期后条件更新只会生效一次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long afterId = 0;
+        int total = 0;
+        List<Order> page;
+        do {
+            page = orderMapper.selectUnpaidDeadlines(afterId, REBUILD_PAGE_SIZE);
+            for (Order order : page) {
+                schedule(order.getId(), order.getCreateTime());
+                afterId = order.getId();
+            }
+            total += page.size();
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        log.info("付款超时时间轮已重建，待付款订单 {} 个", total);
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private void schedule(Long orderId, LocalDateTime createTime) {
+        long created = createTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        incoming.add(new Deadline(orderId, created + payTimeout));
+        pendingCount.incrementAndGet();
+    }
+
+    /**
+     * 推进到当前时间对应的刻度，上一轮处理较慢时连续补齐落后的刻度
+     */
+    void advance() {
+        try {
+            long now = clock.getAsLong();
+            long targetTick = (now - startTime) / tickMillis;
+            List<Deadline> expired = new ArrayList<>();
+            while (tick <= targetTick) {
+                transferIncoming();
+                expireBucket(buckets[(int) (tick & mask)], (int) (tick & mask), now, expired);
+                tick++;
+            }
+            if (!expired.isEmpty()) {
+                cancel(expired, now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("付款超时处理异常", e);
+        }
+    }
+
+    private void transferIncoming() {
+        Deadline deadline;
+        while ((deadline = incoming.poll()) != null) {
+            // 已过期的截止时间放在当前刻度，本轮即处理
+            long deadlineTick = Math.max(tick, ceilDiv(deadline.deadline - startTime, tickMillis));
+            deadline.rounds = (deadlineTick - tick) / buckets.length;
+            int index = (int) (deadlineTick & mask);
+            deadline.next = buckets[index];
+            buckets[index] = deadline;
+        }
+    }
+
+    private void expireBucket(Deadline head, int index, long now, List<Deadline> expired) {
+        Deadline prev = null;
+        Deadline current = head;
+        while (current != null) {
+            Deadline next = current.next;
+            if (current.rounds <= 0 && current.deadline <= now) {
+                if (prev == null) {
+                    buckets[index] = next;
+                } else {
+                    prev.next = next;
+                }
+                current.next = null;
+                expired.add(current);
+            } else {
+                if (current.rounds > 0) {
+                    current.rounds--;
+                }
+                prev = current;
+            }
+            current = next;
+        }
+    }
+
+    private void cancel(List<Deadline> expired, long now) {
+        // 再用创建时间兜底校验一次，时间轮中的截止时间与数据库不一致时不会提前取消
+        LocalDateTime createdBefore = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
+                .minus(payTimeout, ChronoUnit.MILLIS);
+        int cancelled = 0;
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Deadline> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Deadline deadline : batch) {
+                ids.add(deadline.orderId);
+            }
+            try {
+                cancelled += orderService.expireUnpaidOrders(ids, createdBefore);
+                pendingCount.addAndGet(-batch.size());
+            } catch (RuntimeException e) {
+                // 本批下一刻度重试
+                log.warn("批量取消超时订单失败，稍后重试: {} 个", ids.size(), e);
+                incoming.addAll(batch);
+            }
+        }
+        if (cancelled > 0) {
+            log.info("已取消超时未付款订单 {} 个", cancelled);
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return x <= 0 ? 0 : (x + y - 1) / y;
+    }
+
+    private static class Deadline {
+        private final long orderId;
+        private final long deadline;
+        private long rounds;
+        private Deadline next;
+
+        Deadline(long orderId, long deadline) {
+            this.orderId = orderId;
+            this.deadline = deadline;
+        }
+    }
+}
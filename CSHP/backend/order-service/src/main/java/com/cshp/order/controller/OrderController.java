@@ -1,7 +1,11 @@
 package com.cshp.order.controller;
 
+import com.cshp.common.result.CursorPage;
 import com.cshp.common.result.Result;
 import com.cshp.common.util.HeaderUtil;
+import com.cshp.order.component.IdempotencyGuard;
+import com.cshp.order.dto.CheckoutDTO;
+import com.cshp.order.dto.CheckoutResultDTO;
 import com.cshp.order.dto.OrderCreateDTO;
 import com.cshp.order.dto.OrderDTO;
 import com.cshp.order.service.OrderService;
@@ -10,7 +14,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/order")
@@ -19,55 +23,97 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyGuard idempotencyGuard;
+
     @PostMapping
     public Result<OrderDTO> createOrder(@Valid @RequestBody OrderCreateDTO dto,
                                         @RequestHeader("X-Student-Id") String buyerId,
                                         @RequestHeader(value = "X-Buyer-Name", required = false) String buyerName,
-                                        @RequestHeader(value = "X-User-Name", required = false) String userName) {
+                                        @RequestHeader(value = "X-User-Name", required = false) String userName,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         // 解码可能包含非 ASCII 字符的请求头
         String decodedBuyerName = buyerName != null ? HeaderUtil.decodeHeaderValue(buyerName) : null;
         String decodedUserName = userName != null ? HeaderUtil.decodeHeaderValue(userName) : null;
         String finalBuyerName = StringUtils.hasText(decodedBuyerName) ? decodedBuyerName : decodedUserName;
-        OrderDTO order = orderService.createOrder(dto, buyerId, finalBuyerName);
+        OrderDTO order = idempotencyGuard.execute(buyerId, idempotencyKey, "create:" + dto.getProductId(),
+                OrderDTO.class, () -> orderService.createOrder(dto, buyerId, finalBuyerName));
         return Result.success(order);
     }
 
+    /**
+     * 购物车结算，部分商品失败时其余商品照常下单
+     */
+    @PostMapping("/checkout")
+    public Result<CheckoutResultDTO> checkout(@Valid @RequestBody CheckoutDTO dto,
+                                              @RequestHeader("X-Student-Id") String buyerId,
+                                              @RequestHeader(value = "X-Buyer-Name", required = false) String buyerName,
+                                              @RequestHeader(value = "X-User-Name", required = false) String userName,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        String decodedBuyerName = buyerName != null ? HeaderUtil.decodeHeaderValue(buyerName) : null;
+        String decodedUserName = userName != null ? HeaderUtil.decodeHeaderValue(userName) : null;
+        String finalBuyerName = StringUtils.hasText(decodedBuyerName) ? decodedBuyerName : decodedUserName;
+        String fingerprint = "checkout:" + dto.getProductIds().stream().distinct().sorted()
+                .map(String::valueOf).collect(Collectors.joining(","));
+        CheckoutResultDTO result = idempotencyGuard.execute(buyerId, idempotencyKey, fingerprint,
+                CheckoutResultDTO.class, () -> orderService.checkout(dto, buyerId, finalBuyerName));
+        return Result.success(result);
+    }
+
     @GetMapping("/{id}")
     public Result<OrderDTO> getOrder(@PathVariable Long id) {
         OrderDTO order = orderService.getOrderById(id);
         return Result.success(order);
     }
 
+    /**
+     * 我的买入，status 为空时返回全部状态
+     */
     @GetMapping("/my-buy")
-    public Result<List<OrderDTO>> getMyBuyOrders(@RequestHeader("X-Student-Id") String buyerId) {
-        List<OrderDTO> orders = orderService.getOrdersByBuyerId(buyerId);
+    public Result<CursorPage<OrderDTO>> getMyBuyOrders(@RequestHeader("X-Student-Id") String buyerId,
+                                                       @RequestParam(required = false) Integer status,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer size) {
+        CursorPage<OrderDTO> orders = orderService.getOrdersByBuyerId(buyerId, status, cursor, size);
         return Result.success(orders);
     }
 
+    /**
+     * 我的卖出，status 为空时返回全部状态
+     */
     @GetMapping("/my-sell")
-    public Result<List<OrderDTO>> getMySellOrders(@RequestHeader("X-Student-Id") String sellerId) {
-        List<OrderDTO> orders = orderService.getOrdersBySellerId(sellerId);
+    public Result<CursorPage<OrderDTO>> getMySellOrders(@RequestHeader("X-Student-Id") String sellerId,
+                                                        @RequestParam(required = false) Integer status,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size) {
+        CursorPage<OrderDTO> orders = orderService.getOrdersBySellerId(sellerId, status, cursor, size);
         return Result.success(orders);
     }
 
     @PutMapping("/{id}/pay")
     public Result<OrderDTO> payOrder(@PathVariable Long id,
-                                     @RequestHeader("X-Student-Id") String buyerId) {
-        OrderDTO order = orderService.payOrder(id, buyerId);
+                                     @RequestHeader("X-Student-Id") String buyerId,
+                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        OrderDTO order = idempotencyGuard.execute(buyerId, idempotencyKey, "pay:" + id, OrderDTO.class,
+                () -> orderService.payOrder(id, buyerId));
         return Result.success(order);
     }
 
     @PutMapping("/{id}/cancel")
     public Result<OrderDTO> cancelOrder(@PathVariable Long id,
-                                        @RequestHeader("X-Student-Id") String buyerId) {
-        OrderDTO order = orderService.cancelOrder(id, buyerId);
+                                        @RequestHeader("X-Student-Id") String buyerId,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        OrderDTO order = idempotencyGuard.execute(buyerId, idempotencyKey, "cancel:" + id, OrderDTO.class,
+                () -> orderService.cancelOrder(id, buyerId));
         return Result.success(order);
     }
 
     @PutMapping("/{id}/ship")
     public Result<OrderDTO> shipOrder(@PathVariable Long id,
-                                      @RequestHeader("X-Student-Id") String sellerId) {
-        OrderDTO order = orderService.shipOrder(id, sellerId);
+                                      @RequestHeader("X-Student-Id") String sellerId,
+                                      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        OrderDTO order = idempotencyGuard.execute(sellerId, idempotencyKey, "ship:" + id, OrderDTO.class,
+                () -> orderService.shipOrder(id, sellerId));
         return Result.success(order);
     }
 
@@ -0,0 +1,23 @@
+package com.cshp.order.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class CheckoutDTO {
+    @NotEmpty(message = "请选择要购买的商品")
+    @Size(max = 50, message = "一次最多结算50件商品")
+    private List<Long> productIds;
+
+    @NotBlank(message = "收货地址不能为空")
+    private String address;
+
+    @NotBlank(message = "联系电话不能为空")
+    private String phone;
+
+    private String remark;
+}
@@ -0,0 +1,24 @@
+package com.cshp.order.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 结算结果，results 与请求中的商品ID顺序一致（已去重）
+ */
+@Data
+public class CheckoutResultDTO {
+    private Integer successCount;
+    private List<Item> results;
+    private Boolean cartUpdated; // 购物车移除失败不影响已创建的订单
+
+    @Data
+    public static class Item {
+        private Long productId;
+        private Boolean success;
+        private Integer code; // 200 成功，404 商品不存在，409 商品已售出或已被其他买家下单
+        private String message;
+        private OrderDTO order;
+    }
+}
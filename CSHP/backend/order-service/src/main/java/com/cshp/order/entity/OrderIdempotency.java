@@ -0,0 +1,22 @@
+package com.cshp.order.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("order_idempotency")
+public class OrderIdempotency {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private String userId;
+    private String idemKey;
+    private String fingerprint; // 操作和目标，例如 pay:123
+    private Integer state; // 0:处理中 1:已完成
+    private String response; // 成功结果的 JSON
+    private LocalDateTime createTime;
+    private LocalDateTime expireTime;
+}
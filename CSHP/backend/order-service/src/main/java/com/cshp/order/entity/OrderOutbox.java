@@ -0,0 +1,36 @@
+package com.cshp.order.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("order_outbox")
+public class OrderOutbox {
+
+    /**
+     * 订单状态变更需要同步到商品的副作用
+     */
+    public enum Effect {
+        SOLD,       // 付款：在售 -> 已售出
+        RELEASED,   // 恢复在售；待付款订单改为只占有预留记录后不再写入，保留以投递存量记录
+        SHIPPED,    // 发货：标记已寄出
+        REFUNDED    // 确认退款：恢复在售且未寄出
+    }
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private Long orderId;
+    private Long productId;
+    private String effect; // Effect
+    private Integer state; // 0:待投递 1:已投递 2:投递失败，需人工处理
+    private Integer attempts;
+    private LocalDateTime nextRetryTime;
+    private String claimToken;
+    private String lastError;
+    private LocalDateTime createTime;
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,19 @@
+package com.cshp.order.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("product_reservation")
+public class ProductReservation {
+    @TableId(type = IdType.INPUT)
+    private Long productId; // 主键保证同一商品只有一个订单占有
+    private Long orderId;
+    private String buyerId;
+    private LocalDateTime expireTime; // 为空表示已付款，长期占有直到退款
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,20 @@
+package com.cshp.order.event;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单创建后发布，UnpaidOrderExpirer 在事务提交后登记付款截止时间
+ */
+@Getter
+public class OrderCreatedEvent {
+
+    private final Long orderId;
+    private final LocalDateTime createTime;
+
+    public OrderCreatedEvent(Long orderId, LocalDateTime createTime) {
+        this.orderId = orderId;
+        this.createTime = createTime;
+    }
+}
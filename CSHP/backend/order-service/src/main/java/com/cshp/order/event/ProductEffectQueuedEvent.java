@@ -0,0 +1,16 @@
+package com.cshp.order.event;
+
+import lombok.Getter;
+
+/**
+ * 订单写入商品侧副作用后发布，ProductEffectDispatcher 在事务提交后立即投递，不必等下一次轮询
+ */
+@Getter
+public class ProductEffectQueuedEvent {
+
+    private final Long orderId;
+
+    public ProductEffectQueuedEvent(Long orderId) {
+        this.orderId = orderId;
+    }
+}
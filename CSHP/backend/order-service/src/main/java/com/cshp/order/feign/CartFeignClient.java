@@ -0,0 +1,17 @@
+package com.cshp.order.feign;
+
+import com.cshp.common.result.Result;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+@FeignClient(name = "cart-service")
+public interface CartFeignClient {
+
+    @DeleteMapping("/cart/internal/items")
+    Result<Integer> removeProducts(@RequestHeader("X-Student-Id") String userId,
+                                   @RequestParam("productIds") List<Long> productIds);
+}
@@ -1,6 +1,7 @@
 package com.cshp.order.feign;
 
 import com.cshp.common.result.Result;
+import com.cshp.order.feign.dto.ProductBatchFeignDTO;
 import com.cshp.order.feign.dto.ProductFeignDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,15 +9,31 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 @FeignClient(name = "product-service")
 public interface ProductFeignClient {
 
     @GetMapping("/product/internal/{id}")
     Result<ProductFeignDTO> getProduct(@PathVariable("id") Long id);
 
+    /**
+     * 批量查询商品，不存在的ID在 missingIds 中返回
+     */
+    @GetMapping("/product/internal/batch")
+    Result<ProductBatchFeignDTO> getProducts(@RequestParam("ids") List<Long> ids);
+
     @PutMapping("/product/internal/{id}/status")
     Result<Void> updateStatus(@PathVariable("id") Long id, @RequestParam("status") Integer status);
 
+    /**
+     * 仅当商品当前状态为 expect 时更新，状态不符返回 409
+     */
+    @PutMapping("/product/internal/{id}/status/cas")
+    Result<Void> compareAndSetStatus(@PathVariable("id") Long id,
+                                     @RequestParam("expect") Integer expect,
+                                     @RequestParam("status") Integer status);
+
     @PutMapping("/product/internal/{id}/shipped")
     Result<Void> updateShipped(@PathVariable("id") Long id, @RequestParam("shipped") Integer shipped);
 }
@@ -0,0 +1,25 @@
+package com.cshp.order.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cshp.order.entity.OrderIdempotency;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+@Mapper
+public interface OrderIdempotencyMapper extends BaseMapper<OrderIdempotency> {
+
+    OrderIdempotency selectByKey(@Param("userId") String userId, @Param("idemKey") String idemKey);
+
+    int markCompleted(@Param("id") Long id,
+                      @Param("response") String response,
+                      @Param("expireTime") LocalDateTime expireTime);
+
+    /**
+     * 仅删除已过期的记录，返回 0 表示记录已被其他请求处理
+     */
+    int deleteExpiredById(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -3,8 +3,60 @@ package com.cshp.order.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cshp.order.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
-}
 
+    Order selectByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 多行插入，回填自增 id
+     */
+    int insertBatch(@Param("orders") List<Order> orders);
+
+    /**
+     * 条件更新订单状态，返回 0 表示订单当前状态已不是 expectedStatus
+     */
+    int updateStatusIfCurrent(@Param("id") Long id,
+                              @Param("expectedStatus") Integer expectedStatus,
+                              @Param("status") Integer status);
+
+    /**
+     * 同一商品上除 excludeOrderId 外已付款且未退款的订单数
+     */
+    int countHoldingOrders(@Param("productId") Long productId, @Param("excludeOrderId") Long excludeOrderId);
+
+    /**
+     * 按 id 顺序分页读取待付款订单的 id 和创建时间，用于启动时重建付款超时定时器
+     */
+    List<Order> selectUnpaidDeadlines(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 锁定仍待付款且已超时的订单，只返回 id 和 product_id
+     */
+    List<Order> selectUnpaidForUpdate(@Param("ids") List<Long> ids, @Param("createdBefore") LocalDateTime createdBefore);
+
+    int cancelUnpaid(@Param("ids") List<Long> ids, @Param("createdBefore") LocalDateTime createdBefore);
+
+    /**
+     * 买家订单游标分页，按 (create_time, id) 倒序，status 为空时不过滤
+     */
+    List<Order> selectByBuyerId(@Param("buyerId") String buyerId,
+                                @Param("status") Integer status,
+                                @Param("cursorTime") LocalDateTime cursorTime,
+                                @Param("cursorId") Long cursorId,
+                                @Param("limit") int limit);
+
+    /**
+     * 卖家订单游标分页，按 (create_time, id) 倒序，status 为空时不过滤
+     */
+    List<Order> selectBySellerId(@Param("sellerId") String sellerId,
+                                 @Param("status") Integer status,
+                                 @Param("cursorTime") LocalDateTime cursorTime,
+                                 @Param("cursorId") Long cursorId,
+                                 @Param("limit") int limit);
+}
@@ -0,0 +1,47 @@
+package com.cshp.order.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cshp.order.entity.OrderOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface OrderOutboxMapper extends BaseMapper<OrderOutbox> {
+
+    /**
+     * 按 id 顺序读取可以投递的记录：已到重试时间，且是所属商品最早的未完成记录，
+     * 同一商品前面有待投递或投递失败的记录时不返回
+     */
+    List<OrderOutbox> selectPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 用 token 认领一批到期记录并延长租约，多实例同时认领时每条记录只归属一个 token
+     */
+    int claim(@Param("ids") List<Long> ids,
+              @Param("token") String token,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<OrderOutbox> selectByClaimToken(@Param("token") String token);
+
+    /**
+     * 仍由 token 持有时延长租约，返回 0 表示记录已被其他实例重新认领或已完成
+     */
+    int renewLease(@Param("id") Long id,
+                   @Param("token") String token,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    int markDelivered(@Param("ids") List<Long> ids);
+
+    int markRetry(@Param("id") Long id,
+                  @Param("attempts") int attempts,
+                  @Param("nextRetryTime") LocalDateTime nextRetryTime,
+                  @Param("lastError") String lastError);
+
+    int markFailed(@Param("id") Long id, @Param("attempts") int attempts, @Param("lastError") String lastError);
+
+    int deleteDeliveredBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,36 @@
+package com.cshp.order.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cshp.order.entity.ProductReservation;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface ProductReservationMapper extends BaseMapper<ProductReservation> {
+
+    /**
+     * 不加锁地统计已过期的占有记录，用于在接管前判断是否值得加锁
+     */
+    int countExpired(@Param("productId") Long productId, @Param("now") LocalDateTime now);
+
+    /**
+     * 接管已过期的占有记录，返回 0 表示仍被其他订单占有
+     */
+    int takeOverExpired(@Param("productId") Long productId,
+                        @Param("orderId") Long orderId,
+                        @Param("buyerId") String buyerId,
+                        @Param("expireTime") LocalDateTime expireTime,
+                        @Param("now") LocalDateTime now);
+
+    /**
+     * 付款后转为长期占有，返回 0 表示该订单已不再占有商品
+     */
+    int holdUntilReleased(@Param("productId") Long productId, @Param("orderId") Long orderId);
+
+    int release(@Param("productId") Long productId, @Param("orderId") Long orderId);
+
+    int releaseByOrderIds(@Param("orderIds") List<Long> orderIds);
+}
@@ -1,18 +1,27 @@
 package com.cshp.order.service;
 
+import com.cshp.common.result.CursorPage;
+import com.cshp.order.dto.CheckoutDTO;
+import com.cshp.order.dto.CheckoutResultDTO;
 import com.cshp.order.dto.OrderCreateDTO;
 import com.cshp.order.dto.OrderDTO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderService {
     OrderDTO createOrder(OrderCreateDTO dto, String buyerId, String buyerName);
     
+    /**
+     * 购物车结算：批量查询商品，一个事务内批量创建订单，逐项返回结果，成功的商品从购物车移除
+     */
+    CheckoutResultDTO checkout(CheckoutDTO dto, String buyerId, String buyerName);
+
     OrderDTO getOrderById(Long id);
     
-    List<OrderDTO> getOrdersByBuyerId(String buyerId);
+    CursorPage<OrderDTO> getOrdersByBuyerId(String buyerId, Integer status, String cursor, Integer size);
     
-    List<OrderDTO> getOrdersBySellerId(String sellerId);
+    CursorPage<OrderDTO> getOrdersBySellerId(String sellerId, Integer status, String cursor, Integer size);
     
     OrderDTO payOrder(Long id, String buyerId);
     
@@ -25,5 +34,10 @@ public interface OrderService {
     OrderDTO refundOrder(Long id, String buyerId);
     
     OrderDTO confirmRefund(Long id, String sellerId);
+
+    /**
+     * 批量取消超时未付款的订单，只处理仍为待付款且创建时间不晚于 createdBefore 的订单，返回实际取消数
+     */
+    int expireUnpaidOrders(List<Long> ids, LocalDateTime createdBefore);
 }
 
@@ -1,32 +1,64 @@
 package com.cshp.order.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.cshp.common.exception.BusinessException;
+import com.cshp.common.result.CursorPage;
 import com.cshp.common.result.Result;
+import com.cshp.common.util.CursorUtil;
+import com.cshp.order.component.OrderNoGenerator;
+import com.cshp.order.dto.CheckoutDTO;
+import com.cshp.order.dto.CheckoutResultDTO;
 import com.cshp.order.dto.OrderCreateDTO;
 import com.cshp.order.dto.OrderDTO;
 import com.cshp.order.entity.Order;
+import com.cshp.order.entity.OrderOutbox;
+import com.cshp.order.entity.ProductReservation;
+import com.cshp.order.event.OrderCreatedEvent;
+import com.cshp.order.event.ProductEffectQueuedEvent;
+import com.cshp.order.feign.CartFeignClient;
 import com.cshp.order.feign.ProductFeignClient;
+import com.cshp.order.feign.dto.ProductBatchFeignDTO;
 import com.cshp.order.feign.dto.ProductFeignDTO;
 import com.cshp.order.mapper.OrderMapper;
+import com.cshp.order.mapper.OrderOutboxMapper;
+import com.cshp.order.mapper.ProductReservationMapper;
 import com.cshp.order.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
     private final OrderMapper orderMapper;
+    private final OrderOutboxMapper orderOutboxMapper;
+    private final ProductReservationMapper productReservationMapper;
     private final ProductFeignClient productFeignClient;
+    private final CartFeignClient cartFeignClient;
+    private final OrderNoGenerator orderNoGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.pay-timeout:1800000}")
+    private long payTimeout;
 
     @Override
     @Transactional
@@ -36,27 +68,60 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException("商品已售出或不可购买");
         }
 
-        Order order = new Order();
-        order.setOrderNo(generateOrderNo());
-        order.setProductId(product.getId());
-        order.setProductTitle(product.getTitle());
-        order.setProductImage(getFirstImage(product.getImages()));
-        order.setPrice(product.getPrice());
-        order.setSellerId(product.getSellerId());
-        // 不再设置 sellerName，因为数据库中不存在该字段
-        order.setBuyerId(buyerId);
-        order.setBuyerName(StringUtils.hasText(buyerName) ? buyerName : buyerId);
-        order.setAddress(dto.getAddress());
-        order.setPhone(dto.getPhone());
-        order.setRemark(dto.getRemark());
-        order.setStatus(0);
-        order.setCreateTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-        
+        Order order = buildOrder(product, buyerId, buyerName, dto.getAddress(), dto.getPhone(), dto.getRemark());
         orderMapper.insert(order);
+        reserveProduct(order, order.getCreateTime().plus(payTimeout, ChronoUnit.MILLIS));
+        eventPublisher.publishEvent(new OrderCreatedEvent(order.getId(), order.getCreateTime()));
         return convertToDTO(order);
     }
 
+    @Override
+    public CheckoutResultDTO checkout(CheckoutDTO dto, String buyerId, String buyerName) {
+        List<Long> productIds = new ArrayList<>(new LinkedHashSet<>(dto.getProductIds()));
+        Map<Long, CheckoutResultDTO.Item> results = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            // 批量查询结果中没有的商品保持为不存在
+            results.put(productId, checkoutItem(productId, 404, "商品不存在"));
+        }
+
+        // 一次批量查询解析全部商品
+        Result<ProductBatchFeignDTO> batch = productFeignClient.getProducts(productIds);
+        if (batch == null || batch.getCode() != 200 || batch.getData() == null) {
+            throw new BusinessException("查询商品信息失败");
+        }
+        List<Order> candidates = new ArrayList<>();
+        for (ProductFeignDTO product : batch.getData().getProducts()) {
+            CheckoutResultDTO.Item item = results.get(product.getId());
+            if (item == null) {
+                continue;
+            }
+            if (product.getStatus() != null && product.getStatus() != 0) {
+                item.setCode(409);
+                item.setMessage("商品已售出或不可购买");
+                continue;
+            }
+            candidates.add(buildOrder(product, buyerId, buyerName, dto.getAddress(), dto.getPhone(), dto.getRemark()));
+        }
+
+        List<Order> created = candidates.isEmpty()
+                ? Collections.emptyList()
+                : transactionTemplate.execute(status -> createOrders(candidates, results));
+
+        for (Order order : created) {
+            CheckoutResultDTO.Item item = results.get(order.getProductId());
+            item.setSuccess(true);
+            item.setCode(200);
+            item.setMessage(null);
+            item.setOrder(convertToDTO(order));
+        }
+
+        CheckoutResultDTO result = new CheckoutResultDTO();
+        result.setSuccessCount(created.size());
+        result.setResults(new ArrayList<>(results.values()));
+        result.setCartUpdated(removeFromCart(buyerId, created));
+        return result;
+    }
+
     @Override
     public OrderDTO getOrderById(Long id) {
         Order order = orderMapper.selectById(id);
@@ -67,27 +132,28 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    public List<OrderDTO> getOrdersByBuyerId(String buyerId) {
-        QueryWrapper<Order> wrapper = new QueryWrapper<>();
-        wrapper.eq("buyer_id", buyerId);
-        wrapper.orderByDesc("create_time");
-        List<Order> orders = orderMapper.selectList(wrapper);
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+    public CursorPage<OrderDTO> getOrdersByBuyerId(String buyerId, Integer status, String cursor, Integer size) {
+        checkStatusFilter(status);
+        int pageSize = CursorUtil.normalizeSize(size);
+        CursorUtil.Cursor c = CursorUtil.decode(cursor);
+        List<Order> orders = orderMapper.selectByBuyerId(buyerId, status, c.getTime(), c.getId(), pageSize + 1);
+        return toPage(orders, pageSize);
     }
 
     @Override
-    public List<OrderDTO> getOrdersBySellerId(String sellerId) {
-        QueryWrapper<Order> wrapper = new QueryWrapper<>();
-        wrapper.eq("seller_id", sellerId);
-        wrapper.orderByDesc("create_time");
-        List<Order> orders = orderMapper.selectList(wrapper);
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+    public CursorPage<OrderDTO> getOrdersBySellerId(String sellerId, Integer status, String cursor, Integer size) {
+        checkStatusFilter(status);
+        int pageSize = CursorUtil.normalizeSize(size);
+        CursorUtil.Cursor c = CursorUtil.decode(cursor);
+        List<Order> orders = orderMapper.selectBySellerId(sellerId, status, c.getTime(), c.getId(), pageSize + 1);
+        return toPage(orders, pageSize);
     }
 
     @Override
     @Transactional
     public OrderDTO payOrder(Long id, String buyerId) {
-        Order order = orderMapper.selectById(id);
+        // 锁定订单行，与超时取消串行执行
+        Order order = orderMapper.selectByIdForUpdate(id);
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
@@ -98,18 +164,23 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException("订单状态不正确");
         }
         
+        // 付款后转为长期占有；占有已过期且被其他订单接管时付款失败
+        if (productReservationMapper.holdUntilReleased(order.getProductId(), order.getId()) == 0) {
+            reserveProduct(order, null);
+        }
+
         order.setStatus(1);
         order.setPayTime(LocalDateTime.now());
         order.setUpdateTime(LocalDateTime.now());
         orderMapper.updateById(order);
-        updateProductStatus(order.getProductId(), 1);
+        enqueueProductEffect(order, OrderOutbox.Effect.SOLD);
         return convertToDTO(order);
     }
 
     @Override
     @Transactional
     public OrderDTO cancelOrder(Long id, String buyerId) {
-        Order order = orderMapper.selectById(id);
+        Order order = orderMapper.selectByIdForUpdate(id);
         if (order == null) {
             throw new BusinessException("订单不存在");
         }
@@ -123,7 +194,8 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(4);
         order.setUpdateTime(LocalDateTime.now());
         orderMapper.updateById(order);
-        updateProductStatus(order.getProductId(), 0);
+        // 待付款订单只占有预留记录，商品状态未改动，释放预留即可
+        productReservationMapper.release(order.getProductId(), order.getId());
         return convertToDTO(order);
     }
 
@@ -145,7 +217,7 @@ public class OrderServiceImpl implements OrderService {
         order.setShipTime(LocalDateTime.now());
         order.setUpdateTime(LocalDateTime.now());
         orderMapper.updateById(order);
-        updateProductShipped(order.getProductId(), 1);
+        enqueueProductEffect(order, OrderOutbox.Effect.SHIPPED);
         return convertToDTO(order);
     }
 
@@ -207,11 +279,28 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(6);
         order.setUpdateTime(LocalDateTime.now());
         orderMapper.updateById(order);
-        updateProductStatus(order.getProductId(), 0);
-        updateProductShipped(order.getProductId(), 0);
+        productReservationMapper.release(order.getProductId(), order.getId());
+        enqueueProductEffect(order, OrderOutbox.Effect.REFUNDED);
         return convertToDTO(order);
     }
 
+    @Override
+    @Transactional
+    public int expireUnpaidOrders(List<Long> ids, LocalDateTime createdBefore) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // 先锁定仍待付款的订单，再用同样的条件批量更新，与买家同时付款时只有一方生效
+        List<Order> expired = orderMapper.selectUnpaidForUpdate(ids, createdBefore);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        List<Long> expiredIds = expired.stream().map(Order::getId).collect(Collectors.toList());
+        int cancelled = orderMapper.cancelUnpaid(expiredIds, createdBefore);
+        productReservationMapper.releaseByOrderIds(expiredIds);
+        return cancelled;
+    }
+
     private ProductFeignDTO loadProduct(Long productId) {
         Result<ProductFeignDTO> result = productFeignClient.getProduct(productId);
         if (result == null || result.getCode() != 200 || result.getData() == null) {
@@ -220,20 +309,136 @@ public class OrderServiceImpl implements OrderService {
         return result.getData();
     }
 
-    private void updateProductStatus(Long productId, Integer status) {
-        Result<Void> result = productFeignClient.updateStatus(productId, status);
-        if (result == null || result.getCode() != 200) {
-            throw new BusinessException("更新商品状态失败");
+    /**
+     * 结算事务：一条语句插入全部订单，再逐个占有商品，占有失败的订单在同一事务内删除
+     */
+    private List<Order> createOrders(List<Order> candidates, Map<Long, CheckoutResultDTO.Item> results) {
+        orderMapper.insertBatch(candidates);
+        List<Order> created = new ArrayList<>(candidates.size());
+        List<Long> rejected = new ArrayList<>();
+        for (Order order : candidates) {
+            if (tryReserveProduct(order, order.getCreateTime().plus(payTimeout, ChronoUnit.MILLIS))) {
+                created.add(order);
+                eventPublisher.publishEvent(new OrderCreatedEvent(order.getId(), order.getCreateTime()));
+            } else {
+                rejected.add(order.getId());
+                CheckoutResultDTO.Item item = results.get(order.getProductId());
+                item.setCode(409);
+                item.setMessage("商品已被其他买家下单");
+            }
+        }
+        if (!rejected.isEmpty()) {
+            orderMapper.deleteBatchIds(rejected);
+        }
+        return created;
+    }
+
+    /**
+     * 订单已提交后再移除购物车条目，失败只影响购物车展示，不回滚订单
+     */
+    private boolean removeFromCart(String buyerId, List<Order> created) {
+        if (created.isEmpty()) {
+            return true;
+        }
+        List<Long> productIds = created.stream().map(Order::getProductId).collect(Collectors.toList());
+        try {
+            Result<Integer> result = cartFeignClient.removeProducts(buyerId, productIds);
+            return result != null && result.getCode() == 200;
+        } catch (RuntimeException e) {
+            log.warn("结算后移除购物车条目失败: buyer={}, products={}", buyerId, productIds, e);
+            return false;
+        }
+    }
+
+    private CheckoutResultDTO.Item checkoutItem(Long productId, int code, String message) {
+        CheckoutResultDTO.Item item = new CheckoutResultDTO.Item();
+        item.setProductId(productId);
+        item.setSuccess(false);
+        item.setCode(code);
+        item.setMessage(message);
+        return item;
+    }
+
+    private void checkStatusFilter(Integer status) {
+        if (status != null && (status < 0 || status > 6)) {
+            throw new BusinessException(400, "不支持的订单状态: " + status);
+        }
+    }
+
+    private CursorPage<OrderDTO> toPage(List<Order> orders, int pageSize) {
+        return CursorPage.of(orders, pageSize, Order::getCreateTime, Order::getId, this::convertToDTO);
+    }
+
+    private Order buildOrder(ProductFeignDTO product, String buyerId, String buyerName,
+                             String address, String phone, String remark) {
+        Order order = new Order();
+        order.setOrderNo(orderNoGenerator.nextOrderNo());
+        order.setProductId(product.getId());
+        order.setProductTitle(product.getTitle());
+        order.setProductImage(getFirstImage(product.getImages()));
+        order.setPrice(product.getPrice());
+        order.setSellerId(product.getSellerId());
+        // 不再设置 sellerName，因为数据库中不存在该字段
+        order.setBuyerId(buyerId);
+        order.setBuyerName(StringUtils.hasText(buyerName) ? buyerName : buyerId);
+        order.setAddress(address);
+        order.setPhone(phone);
+        order.setRemark(remark);
+        order.setStatus(0);
+        order.setCreateTime(LocalDateTime.now());
+        order.setUpdateTime(LocalDateTime.now());
+        return order;
+    }
+
+    /**
+     * 在订单所在事务内占有商品，expireTime 为空表示长期占有
+     * 商品主键冲突且原占有未过期时说明已被其他订单占有，整个下单事务回滚
+     */
+    private void reserveProduct(Order order, LocalDateTime expireTime) {
+        if (!tryReserveProduct(order, expireTime)) {
+            throw new BusinessException(409, "商品已被其他买家下单");
         }
     }
 
-    private void updateProductShipped(Long productId, Integer shipped) {
-        Result<Void> result = productFeignClient.updateShipped(productId, shipped);
-        if (result == null || result.getCode() != 200) {
-            throw new BusinessException("更新商品发货状态失败");
+    private boolean tryReserveProduct(Order order, LocalDateTime expireTime) {
+        ProductReservation reservation = new ProductReservation();
+        reservation.setProductId(order.getProductId());
+        reservation.setOrderId(order.getId());
+        reservation.setBuyerId(order.getBuyerId());
+        reservation.setExpireTime(expireTime);
+        reservation.setCreateTime(LocalDateTime.now());
+        try {
+            productReservationMapper.insert(reservation);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // 主键冲突后本事务持有该行的共享锁，多个冲突的事务同时 UPDATE 会互相等待对方的共享锁而死锁，
+            // 先用不加锁的读确认占有记录已过期，未过期时直接返回，只有接管时才加排他锁
+            LocalDateTime now = LocalDateTime.now();
+            if (productReservationMapper.countExpired(order.getProductId(), now) == 0) {
+                return false;
+            }
+            return productReservationMapper.takeOverExpired(order.getProductId(), order.getId(),
+                    order.getBuyerId(), expireTime, now) > 0;
         }
     }
 
+    /**
+     * 商品侧副作用与订单状态在同一事务写入发件箱，提交后由 ProductEffectDispatcher 异步投递
+     */
+    private void enqueueProductEffect(Order order, OrderOutbox.Effect effect) {
+        OrderOutbox row = new OrderOutbox();
+        row.setOrderId(order.getId());
+        row.setProductId(order.getProductId());
+        row.setEffect(effect.name());
+        row.setState(0);
+        row.setAttempts(0);
+        row.setNextRetryTime(LocalDateTime.now());
+        row.setCreateTime(LocalDateTime.now());
+        row.setUpdateTime(LocalDateTime.now());
+        orderOutboxMapper.insert(row);
+        eventPublisher.publishEvent(new ProductEffectQueuedEvent(order.getId()));
+    }
+
     private String getFirstImage(String images) {
         if (images == null || images.isEmpty()) {
             return null;
@@ -244,11 +449,6 @@ public class OrderServiceImpl implements OrderService {
         return images;
     }
 
-    private String generateOrderNo() {
-        return "ORD" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + 
-               String.format("%04d", (int)(Math.random() * 10000));
-    }
-
     private OrderDTO convertToDTO(Order order) {
         OrderDTO dto = new OrderDTO();
         BeanUtils.copyProperties(order, dto);
@@ -0,0 +1,63 @@
+package com.cshp.order.component;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成吞吐对比，运行方式：mvn test-compile 后执行 main 方法
+ * legacy 为原先的 时间格式化 + Math.random 实现
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderNoGeneratorBenchmark {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    // 足够大的回拨容忍度，避免多线程压测时逻辑时钟领先过多而抛异常
+    private final OrderNoGenerator generator = new OrderNoGenerator(1, Long.MAX_VALUE / 2, System::currentTimeMillis);
+
+    @Benchmark
+    @Threads(1)
+    public String snowflakeSingleThread() {
+        return generator.nextOrderNo();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeEightThreads() {
+        return generator.nextOrderNo();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacyEightThreads() {
+        return "ORD" + LocalDateTime.now().format(FORMATTER)
+                + String.format("%04d", (int) (Math.random() * 10000));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderNoGeneratorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.cshp.order.component;
+
+import com.cshp.common.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderNoGeneratorTest {
+
+    private static final long START = OrderNoGenerator.EPOCH + 1_000_000L;
+
+    @Test
+    void shouldGenerateUniqueOrderNosAcrossThreads() throws Exception {
+        OrderNoGenerator generator = new OrderNoGenerator(7, 5000, System::currentTimeMillis);
+        int threads = 8;
+        int perThread = 50_000;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    String prev = null;
+                    for (int i = 0; i < perThread; i++) {
+                        String no = generator.nextOrderNo();
+                        // 单线程内观察到的订单号严格递增
+                        if (prev != null && no.compareTo(prev) <= 0) {
+                            return false;
+                        }
+                        seen.add(no);
+                        prev = no;
+                    }
+                    return true;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void shouldStayMonotonicWhenClockMovesBackwards() {
+        AtomicLong clock = new AtomicLong(START);
+        OrderNoGenerator generator = new OrderNoGenerator(1, 5000, clock::get);
+
+        long first = generator.nextId();
+        clock.set(START - 2000);
+        long second = generator.nextId();
+        long third = generator.nextId();
+        clock.set(START + 1);
+        long fourth = generator.nextId();
+
+        assertTrue(second > first);
+        assertTrue(third > second);
+        assertTrue(fourth > third);
+    }
+
+    @Test
+    void shouldCarryIntoNextMillisecondWhenSequenceExhausted() {
+        OrderNoGenerator generator = new OrderNoGenerator(3, 5000, () -> START);
+        long last = 0;
+        for (int i = 0; i < (1 << OrderNoGenerator.SEQUENCE_BITS) + 10; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+        long timestamp = last >>> (OrderNoGenerator.WORKER_BITS + OrderNoGenerator.SEQUENCE_BITS);
+        assertEquals(START - OrderNoGenerator.EPOCH + 1, timestamp);
+        assertEquals(3, (last >>> OrderNoGenerator.SEQUENCE_BITS) & OrderNoGenerator.MAX_WORKER_ID);
+    }
+
+    @Test
+    void shouldRejectWhenClockFallsTooFarBehind() {
+        AtomicLong clock = new AtomicLong(START);
+        OrderNoGenerator generator = new OrderNoGenerator(1, 100, clock::get);
+        generator.nextId();
+        clock.set(START - 500);
+
+        BusinessException ex = assertThrows(BusinessException.class, generator::nextId);
+        assertEquals(503, ex.getCode());
+    }
+
+    @Test
+    void shouldFormatFixedWidthOrderNo() {
+        OrderNoGenerator generator = new OrderNoGenerator(0, 5000, () -> START);
+        String no = generator.nextOrderNo();
+        assertEquals(22, no.length());
+        assertTrue(no.startsWith("ORD"));
+    }
+}
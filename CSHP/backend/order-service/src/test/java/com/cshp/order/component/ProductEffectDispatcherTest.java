@@ -0,0 +1,179 @@
+package com.cshp.order.component;
+
+import com.cshp.common.result.Result;
+import com.cshp.order.entity.OrderOutbox;
+import com.cshp.order.feign.ProductFeignClient;
+import com.cshp.order.feign.dto.ProductFeignDTO;
+import com.cshp.order.mapper.OrderMapper;
+import com.cshp.order.mapper.OrderOutboxMapper;
+import com.cshp.order.mapper.ProductReservationMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 发件箱投递：选取和认领由 SQL 完成，这里只验证每条认领到的记录的处理结果
+ */
+class ProductEffectDispatcherTest {
+
+    private static final long OUTBOX_ID = 1L;
+
+    private static final long ORDER_ID = 10L;
+
+    private static final long PRODUCT_ID = 100L;
+
+    private OrderOutboxMapper outboxMapper;
+
+    private OrderMapper orderMapper;
+
+    private ProductReservationMapper reservationMapper;
+
+    private ProductFeignClient productFeignClient;
+
+    private ProductEffectDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxMapper = mock(OrderOutboxMapper.class);
+        orderMapper = mock(OrderMapper.class);
+        reservationMapper = mock(ProductReservationMapper.class);
+        productFeignClient = mock(ProductFeignClient.class);
+
+        dispatcher = new ProductEffectDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "outboxMapper", outboxMapper);
+        ReflectionTestUtils.setField(dispatcher, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(dispatcher, "reservationMapper", reservationMapper);
+        ReflectionTestUtils.setField(dispatcher, "productFeignClient", productFeignClient);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "lease", 30_000L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "baseBackoff", 1_000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoff", 300_000L);
+    }
+
+    @Test
+    void serverErrorIsRetriedWithExponentialBackoff() {
+        claim(row(OrderOutbox.Effect.SHIPPED, 1));
+        when(productFeignClient.updateShipped(PRODUCT_ID, 1)).thenReturn(Result.error(503, "unavailable"));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(1, dispatcher.dispatchBatch());
+        LocalDateTime after = LocalDateTime.now();
+
+        // 第 2 次失败，退避 baseBackoff * 2
+        ArgumentCaptor<LocalDateTime> nextRetry = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxMapper).markRetry(eq(OUTBOX_ID), eq(2), nextRetry.capture(), eq("503 unavailable"));
+        assertFalse(nextRetry.getValue().isBefore(before.plus(2_000, ChronoUnit.MILLIS)));
+        assertFalse(nextRetry.getValue().isAfter(after.plus(2_000, ChronoUnit.MILLIS)));
+        verify(outboxMapper, never()).markFailed(anyLong(), anyInt(), any());
+        verify(outboxMapper, never()).markDelivered(anyList());
+    }
+
+    @Test
+    void serverErrorFailsAfterMaxAttempts() {
+        claim(row(OrderOutbox.Effect.SHIPPED, 2));
+        when(productFeignClient.updateShipped(PRODUCT_ID, 1)).thenReturn(Result.error(500, "boom"));
+
+        dispatcher.dispatchBatch();
+
+        verify(outboxMapper).markFailed(OUTBOX_ID, 3, "500 boom");
+        verify(outboxMapper, never()).markRetry(anyLong(), anyInt(), any(), any());
+    }
+
+    @Test
+    void clientErrorFailsWithoutRetry() {
+        claim(row(OrderOutbox.Effect.RELEASED, 0));
+        when(productFeignClient.updateStatus(PRODUCT_ID, 0)).thenReturn(Result.error(404, "商品不存在"));
+
+        dispatcher.dispatchBatch();
+
+        verify(outboxMapper).markFailed(OUTBOX_ID, 1, "404 商品不存在");
+        verify(outboxMapper, never()).markRetry(anyLong(), anyInt(), any(), any());
+        verify(outboxMapper, never()).markDelivered(anyList());
+    }
+
+    @Test
+    void soldConflictRefundsOrderWhenProductBelongsToAnotherOrder() {
+        claim(row(OrderOutbox.Effect.SOLD, 0));
+        when(productFeignClient.compareAndSetStatus(PRODUCT_ID, 0, 1)).thenReturn(Result.error(409, "状态已变化"));
+        when(productFeignClient.getProduct(PRODUCT_ID)).thenReturn(Result.success(product(1)));
+        when(orderMapper.countHoldingOrders(PRODUCT_ID, ORDER_ID)).thenReturn(1);
+        when(orderMapper.updateStatusIfCurrent(ORDER_ID, 1, 6)).thenReturn(1);
+
+        dispatcher.dispatchBatch();
+
+        verify(orderMapper).updateStatusIfCurrent(ORDER_ID, 1, 6);
+        verify(reservationMapper).release(PRODUCT_ID, ORDER_ID);
+        verify(outboxMapper).markDelivered(Collections.singletonList(OUTBOX_ID));
+    }
+
+    @Test
+    void soldConflictIsTreatedAsDeliveredWhenProductAlreadyOurs() {
+        // 之前投递成功但响应丢失：商品已售出且没有其他订单占有
+        claim(row(OrderOutbox.Effect.SOLD, 1));
+        when(productFeignClient.compareAndSetStatus(PRODUCT_ID, 0, 1)).thenReturn(Result.error(409, "状态已变化"));
+        when(productFeignClient.getProduct(PRODUCT_ID)).thenReturn(Result.success(product(1)));
+        when(orderMapper.countHoldingOrders(PRODUCT_ID, ORDER_ID)).thenReturn(0);
+
+        dispatcher.dispatchBatch();
+
+        verify(orderMapper, never()).updateStatusIfCurrent(anyLong(), anyInt(), anyInt());
+        verify(reservationMapper, never()).release(anyLong(), anyLong());
+        verify(outboxMapper).markDelivered(Collections.singletonList(OUTBOX_ID));
+    }
+
+    @Test
+    void nothingDueClaimsNothing() {
+        when(outboxMapper.selectPending(any(LocalDateTime.class), anyInt())).thenReturn(Collections.emptyList());
+
+        assertEquals(0, dispatcher.dispatchBatch());
+
+        verify(outboxMapper, never()).claim(anyList(), anyString(), any(), any());
+    }
+
+    @Test
+    void rowTakenOverByAnotherInstanceIsSkipped() {
+        claim(row(OrderOutbox.Effect.SHIPPED, 0));
+        when(outboxMapper.renewLease(eq(OUTBOX_ID), anyString(), any(LocalDateTime.class))).thenReturn(0);
+
+        assertEquals(1, dispatcher.dispatchBatch());
+
+        verify(productFeignClient, never()).updateShipped(anyLong(), anyInt());
+        verify(outboxMapper, never()).markDelivered(anyList());
+        verify(outboxMapper, never()).markRetry(anyLong(), anyInt(), any(), any());
+    }
+
+    private void claim(OrderOutbox row) {
+        when(outboxMapper.selectPending(any(LocalDateTime.class), anyInt())).thenReturn(Collections.singletonList(row));
+        when(outboxMapper.selectByClaimToken(anyString())).thenReturn(Collections.singletonList(row));
+        when(outboxMapper.renewLease(eq(row.getId()), anyString(), any(LocalDateTime.class))).thenReturn(1);
+    }
+
+    private OrderOutbox row(OrderOutbox.Effect effect, int attempts) {
+        OrderOutbox row = new OrderOutbox();
+        row.setId(OUTBOX_ID);
+        row.setOrderId(ORDER_ID);
+        row.setProductId(PRODUCT_ID);
+        row.setEffect(effect.name());
+        row.setState(0);
+        row.setAttempts(attempts);
+        row.setNextRetryTime(LocalDateTime.now());
+        return row;
+    }
+
+    private ProductFeignDTO product(int status) {
+        ProductFeignDTO product = new ProductFeignDTO();
+        product.setId(PRODUCT_ID);
+        product.setStatus(status);
+        return product;
+    }
+}
@@ -0,0 +1,156 @@
+package com.cshp.order.component;
+
+import com.cshp.order.entity.Order;
+import com.cshp.order.event.OrderCreatedEvent;
+import com.cshp.order.mapper.OrderMapper;
+import com.cshp.order.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 时间轮用可控时钟逐刻度推进，不启动调度线程
+ */
+class UnpaidOrderExpirerTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private static final long TICK = 1_000L;
+
+    private static final long PAY_TIMEOUT = 60_000L;
+
+    private final AtomicLong time = new AtomicLong(START);
+
+    private OrderService orderService;
+
+    private OrderMapper orderMapper;
+
+    private UnpaidOrderExpirer expirer;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        orderMapper = mock(OrderMapper.class);
+        when(orderService.expireUnpaidOrders(anyList(), any(LocalDateTime.class)))
+                .thenAnswer(inv -> inv.<List<Long>>getArgument(0).size());
+
+        expirer = new UnpaidOrderExpirer();
+        ReflectionTestUtils.setField(expirer, "orderService", orderService);
+        ReflectionTestUtils.setField(expirer, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(expirer, "payTimeout", PAY_TIMEOUT);
+        ReflectionTestUtils.setField(expirer, "tickMillis", TICK);
+        // 4 个槽位，60 秒的截止时间要在时间轮上转 15 圈
+        ReflectionTestUtils.setField(expirer, "wheelSize", 4);
+        ReflectionTestUtils.setField(expirer, "batchSize", 2);
+        ReflectionTestUtils.setField(expirer, "clock", (LongSupplier) time::get);
+        expirer.initWheel();
+    }
+
+    @Test
+    void createdOrderExpiresAtDeadlineAfterMultipleRounds() {
+        expirer.onOrderCreated(new OrderCreatedEvent(1L, at(START)));
+        assertEquals(1, expirer.getPendingCount());
+
+        advanceTo(START + PAY_TIMEOUT - TICK);
+        verify(orderService, never()).expireUnpaidOrders(anyList(), any());
+
+        advanceTo(START + PAY_TIMEOUT);
+        verify(orderService).expireUnpaidOrders(Collections.singletonList(1L), at(START));
+        assertEquals(0, expirer.getPendingCount());
+    }
+
+    @Test
+    void deadlinesInSameBucketExpireInTheirOwnRound() {
+        // 相差 4 个刻度，落在同一个槽位的不同圈
+        expirer.onOrderCreated(new OrderCreatedEvent(1L, at(START)));
+        time.set(START + 4 * TICK);
+        expirer.onOrderCreated(new OrderCreatedEvent(2L, at(START + 4 * TICK)));
+
+        advanceTo(START + PAY_TIMEOUT);
+        verify(orderService).expireUnpaidOrders(Collections.singletonList(1L), at(START));
+        verify(orderService, never()).expireUnpaidOrders(eq(Collections.singletonList(2L)), any());
+
+        advanceTo(START + PAY_TIMEOUT + 4 * TICK);
+        verify(orderService).expireUnpaidOrders(Collections.singletonList(2L), at(START + 4 * TICK));
+        assertEquals(0, expirer.getPendingCount());
+    }
+
+    @Test
+    void rebuildRegistersUnpaidOrdersFromDatabase() {
+        // 停机期间已超时的订单在第一个刻度取消，其余按原截止时间
+        when(orderMapper.selectUnpaidDeadlines(0L, 1000))
+                .thenReturn(Arrays.asList(order(1L, START - PAY_TIMEOUT), order(2L, START)));
+        expirer.rebuild();
+        assertEquals(2, expirer.getPendingCount());
+
+        expirer.advance();
+        verify(orderService).expireUnpaidOrders(Collections.singletonList(1L), at(START - PAY_TIMEOUT));
+
+        advanceTo(START + PAY_TIMEOUT);
+        verify(orderService).expireUnpaidOrders(Collections.singletonList(2L), at(START));
+        assertEquals(0, expirer.getPendingCount());
+    }
+
+    @Test
+    void expiredOrdersAreCancelledInBatches() {
+        for (long id = 1; id <= 3; id++) {
+            expirer.onOrderCreated(new OrderCreatedEvent(id, at(START)));
+        }
+
+        advanceTo(START + PAY_TIMEOUT);
+
+        verify(orderService, times(2)).expireUnpaidOrders(anyList(), eq(at(START)));
+        assertEquals(0, expirer.getPendingCount());
+    }
+
+    @Test
+    void failedBatchIsRetriedOnNextTick() {
+        when(orderService.expireUnpaidOrders(anyList(), any(LocalDateTime.class)))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+        expirer.onOrderCreated(new OrderCreatedEvent(1L, at(START)));
+
+        advanceTo(START + PAY_TIMEOUT);
+        verify(orderService, times(1)).expireUnpaidOrders(anyList(), any());
+        assertEquals(1, expirer.getPendingCount());
+
+        advanceTo(START + PAY_TIMEOUT + TICK);
+        verify(orderService).expireUnpaidOrders(Collections.singletonList(1L), at(START + TICK));
+        verify(orderService, times(2)).expireUnpaidOrders(eq(Collections.singletonList(1L)), any());
+        assertEquals(0, expirer.getPendingCount());
+    }
+
+    /**
+     * 逐刻度推进到 target，与调度线程每个刻度执行一次 advance 一致
+     */
+    private void advanceTo(long target) {
+        while (time.get() < target) {
+            time.set(Math.min(time.get() + TICK, target));
+            expirer.advance();
+        }
+    }
+
+    private Order order(Long id, long createdAt) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCreateTime(at(createdAt));
+        return order;
+    }
+
+    private static LocalDateTime at(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
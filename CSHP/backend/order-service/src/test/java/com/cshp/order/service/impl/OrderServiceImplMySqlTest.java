@@ -0,0 +1,153 @@
+package com.cshp.order.service.impl;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import com.cshp.common.exception.BusinessException;
+import com.cshp.common.result.Result;
+import com.cshp.order.component.OrderNoGenerator;
+import com.cshp.order.dto.OrderCreateDTO;
+import com.cshp.order.feign.CartFeignClient;
+import com.cshp.order.feign.ProductFeignClient;
+import com.cshp.order.feign.dto.ProductFeignDTO;
+import com.cshp.order.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 并发下单：在 MySQL 上用 cshp.sql 建表、实际的 mapper XML 执行，验证预留表主键和事务回滚，
+ * 只替换商品服务和购物车服务的远程调用。没有 Docker 的环境跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = OrderServiceImplMySqlTest.Config.class, properties = "order.no.worker-id=1")
+class OrderServiceImplMySqlTest {
+
+    private static final long PRODUCT_ID = 100L;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>(DockerImageName.parse("mysql:8.0"))
+            .withDatabaseName("cshp")
+            .withCopyFileToContainer(MountableFile.forHostPath("../../frontend/cshp.sql"),
+                    "/docker-entrypoint-initdb.d/cshp.sql");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> 32);
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            TransactionAutoConfiguration.class, JdbcTemplateAutoConfiguration.class, MybatisPlusAutoConfiguration.class})
+    @MapperScan("com.cshp.order.mapper")
+    @Import({OrderServiceImpl.class, OrderNoGenerator.class})
+    static class Config {
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ProductFeignClient productFeignClient;
+
+    @MockBean
+    private CartFeignClient cartFeignClient;
+
+    @BeforeEach
+    void setUp() {
+        ProductFeignDTO product = new ProductFeignDTO();
+        product.setId(PRODUCT_ID);
+        product.setTitle("高等数学（第七版）");
+        product.setPrice(new BigDecimal("25.00"));
+        product.setSellerId("seller");
+        product.setStatus(0);
+        when(productFeignClient.getProduct(PRODUCT_ID)).thenReturn(Result.success(product));
+    }
+
+    @Test
+    void shouldPersistExactlyOneOrderAndReservationUnderConcurrentCreate() throws Exception {
+        int buyers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < buyers; i++) {
+                String buyerId = "buyer" + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(createDTO(), buyerId, buyerId);
+                        succeeded.incrementAndGet();
+                    } catch (BusinessException e) {
+                        assertEquals(409, e.getCode());
+                        conflicted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, succeeded.get());
+        assertEquals(buyers - 1, conflicted.get());
+        // 冲突的订单随事务回滚，只留下占有预留的那一个
+        assertEquals(1, count("SELECT COUNT(*) FROM user_order WHERE product_id = ?"));
+        assertEquals(1, count("SELECT COUNT(*) FROM product_reservation WHERE product_id = ?"));
+        assertEquals(1, count("SELECT COUNT(*) FROM product_reservation r JOIN user_order o"
+                + " ON o.id = r.order_id AND o.buyer_id = r.buyer_id WHERE r.product_id = ?"));
+    }
+
+    private int count(String sql) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, PRODUCT_ID);
+        return count == null ? 0 : count;
+    }
+
+    private OrderCreateDTO createDTO() {
+        OrderCreateDTO dto = new OrderCreateDTO();
+        dto.setProductId(PRODUCT_ID);
+        dto.setAddress("宿舍 3 号楼");
+        dto.setPhone("13800000000");
+        return dto;
+    }
+}
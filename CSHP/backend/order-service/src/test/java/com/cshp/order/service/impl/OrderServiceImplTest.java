@@ -0,0 +1,214 @@
+package com.cshp.order.service.impl;
+
+import com.cshp.common.exception.BusinessException;
+import com.cshp.common.result.Result;
+import com.cshp.order.component.OrderNoGenerator;
+import com.cshp.order.dto.CheckoutDTO;
+import com.cshp.order.dto.CheckoutResultDTO;
+import com.cshp.order.dto.OrderCreateDTO;
+import com.cshp.order.entity.Order;
+import com.cshp.order.entity.ProductReservation;
+import com.cshp.order.feign.CartFeignClient;
+import com.cshp.order.feign.ProductFeignClient;
+import com.cshp.order.feign.dto.ProductBatchFeignDTO;
+import com.cshp.order.feign.dto.ProductFeignDTO;
+import com.cshp.order.mapper.OrderMapper;
+import com.cshp.order.mapper.OrderOutboxMapper;
+import com.cshp.order.mapper.ProductReservationMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 下单预留：product_reservation 的主键约束用内存 Map 的 putIfAbsent 模拟
+ */
+class OrderServiceImplTest {
+
+    private static final long PRODUCT_ID = 100L;
+
+    private static final long OTHER_PRODUCT_ID = 101L;
+
+    private static final long MISSING_PRODUCT_ID = 102L;
+
+    private final ConcurrentHashMap<Long, ProductReservation> reservations = new ConcurrentHashMap<>();
+
+    private CartFeignClient cartFeignClient;
+
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        OrderMapper orderMapper = mock(OrderMapper.class);
+        AtomicLong orderIds = new AtomicLong();
+        when(orderMapper.insert(any(Order.class))).thenAnswer(inv -> {
+            inv.<Order>getArgument(0).setId(orderIds.incrementAndGet());
+            return 1;
+        });
+        when(orderMapper.insertBatch(anyList())).thenAnswer(inv -> {
+            List<Order> orders = inv.getArgument(0);
+            orders.forEach(order -> order.setId(orderIds.incrementAndGet()));
+            return orders.size();
+        });
+
+        ProductReservationMapper reservationMapper = mock(ProductReservationMapper.class);
+        when(reservationMapper.insert(any(ProductReservation.class))).thenAnswer(inv -> {
+            ProductReservation reservation = inv.getArgument(0);
+            if (reservations.putIfAbsent(reservation.getProductId(), reservation) != null) {
+                throw new DuplicateKeyException("Duplicate entry for key 'PRIMARY'");
+            }
+            return 1;
+        });
+        when(reservationMapper.countExpired(anyLong(), any())).thenAnswer(inv -> {
+            ProductReservation current = reservations.get(inv.<Long>getArgument(0));
+            LocalDateTime now = inv.getArgument(1);
+            return current != null && current.getExpireTime() != null && current.getExpireTime().isBefore(now) ? 1 : 0;
+        });
+        when(reservationMapper.takeOverExpired(anyLong(), anyLong(), anyString(), any(), any())).thenAnswer(inv -> {
+            Long productId = inv.getArgument(0);
+            LocalDateTime now = inv.getArgument(4);
+            AtomicInteger updated = new AtomicInteger();
+            reservations.computeIfPresent(productId, (id, current) -> {
+                if (current.getExpireTime() == null || !current.getExpireTime().isBefore(now)) {
+                    return current;
+                }
+                ProductReservation next = new ProductReservation();
+                next.setProductId(productId);
+                next.setOrderId(inv.getArgument(1));
+                next.setBuyerId(inv.getArgument(2));
+                next.setExpireTime(inv.getArgument(3));
+                updated.incrementAndGet();
+                return next;
+            });
+            return updated.get();
+        });
+
+        ProductFeignDTO product = product(PRODUCT_ID);
+        ProductFeignClient productFeignClient = mock(ProductFeignClient.class);
+        when(productFeignClient.getProduct(PRODUCT_ID)).thenReturn(Result.success(product));
+        ProductBatchFeignDTO batch = new ProductBatchFeignDTO();
+        batch.setProducts(Arrays.asList(product, product(OTHER_PRODUCT_ID)));
+        batch.setMissingIds(Collections.singletonList(MISSING_PRODUCT_ID));
+        when(productFeignClient.getProducts(anyList())).thenReturn(Result.success(batch));
+
+        cartFeignClient = mock(CartFeignClient.class);
+        when(cartFeignClient.removeProducts(anyString(), anyList())).thenReturn(Result.success(1));
+
+        orderService = new OrderServiceImpl(orderMapper, mock(OrderOutboxMapper.class), reservationMapper,
+                productFeignClient, cartFeignClient, new OrderNoGenerator(1, 5000, 8083),
+                mock(ApplicationEventPublisher.class), new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(orderService, "payTimeout", 1_800_000L);
+    }
+
+    @Test
+    void shouldLetExactlyOneConcurrentCreateOrderSucceed() throws Exception {
+        int buyers = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < buyers; i++) {
+                String buyerId = "buyer" + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(createDTO(), buyerId, buyerId);
+                        succeeded.incrementAndGet();
+                    } catch (BusinessException e) {
+                        assertEquals(409, e.getCode());
+                        conflicted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, succeeded.get());
+        assertEquals(buyers - 1, conflicted.get());
+        assertEquals(1, reservations.size());
+    }
+
+    @Test
+    void shouldTakeOverExpiredReservation() {
+        orderService.createOrder(createDTO(), "first", "first");
+        reservations.get(PRODUCT_ID).setExpireTime(LocalDateTime.now().minusMinutes(1));
+
+        orderService.createOrder(createDTO(), "second", "second");
+        assertEquals("second", reservations.get(PRODUCT_ID).getBuyerId());
+    }
+
+    @Test
+    void shouldRejectWhilePaidReservationHeld() {
+        orderService.createOrder(createDTO(), "first", "first");
+        reservations.get(PRODUCT_ID).setExpireTime(null);
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> orderService.createOrder(createDTO(), "second", "second"));
+        assertEquals(409, ex.getCode());
+    }
+
+    @Test
+    void shouldReportPerItemResultsOnCheckout() {
+        orderService.createOrder(createDTO(), "first", "first");
+
+        CheckoutDTO dto = new CheckoutDTO();
+        dto.setProductIds(Arrays.asList(PRODUCT_ID, OTHER_PRODUCT_ID, MISSING_PRODUCT_ID, OTHER_PRODUCT_ID));
+        dto.setAddress("宿舍 3 号楼");
+        dto.setPhone("13800000000");
+        CheckoutResultDTO result = orderService.checkout(dto, "second", "second");
+
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(3, result.getResults().size());
+        assertEquals(409, result.getResults().get(0).getCode());
+        assertTrue(result.getResults().get(1).getSuccess());
+        assertEquals(404, result.getResults().get(2).getCode());
+        assertTrue(result.getCartUpdated());
+        verify(cartFeignClient).removeProducts("second", Collections.singletonList(OTHER_PRODUCT_ID));
+    }
+
+    private ProductFeignDTO product(Long id) {
+        ProductFeignDTO product = new ProductFeignDTO();
+        product.setId(id);
+        product.setTitle("高等数学（第七版）");
+        product.setPrice(new BigDecimal("25.00"));
+        product.setSellerId("seller");
+        product.setStatus(0);
+        return product;
+    }
+
+    private OrderCreateDTO createDTO() {
+        OrderCreateDTO dto = new OrderCreateDTO();
+        dto.setProductId(PRODUCT_ID);
+        dto.setAddress("宿舍 3 号楼");
+        dto.setPhone("13800000000");
+        return dto;
+    }
+}
@@ -0,0 +1,181 @@
+package com.cshp.product.component;
+
+import com.cshp.product.dto.CategorySummaryDTO;
+import com.cshp.product.entity.Product;
+import com.cshp.product.event.ProductChangedEvent;
+import com.cshp.product.mapper.ProductMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分类汇总的内存计数
+ * 按商品变更事件增量维护，定时与数据库全量对账；查询直接返回预先生成的快照，不访问数据库
+ * 价格和上架时间用有序多重集合记录，商品下架或删除后最小/最大值仍然准确
+ */
+@Slf4j
+@Component
+public class CategoryFacets {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    /**
+     * 在售商品 -> 所属分类等统计字段，用于删除、下架时找到要扣减的分类
+     */
+    private Map<Long, Product> active = new HashMap<>();
+
+    private Map<String, Facet> facets = new HashMap<>();
+
+    private volatile List<CategorySummaryDTO> snapshot = Collections.emptyList();
+
+    private volatile boolean reconciling;
+
+    /**
+     * 对账期间发生变更的商品，对账结果替换后重新应用
+     */
+    private final Set<Long> changedDuringReconcile = ConcurrentHashMap.newKeySet();
+
+    public List<CategorySummaryDTO> getSummary() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * 按数据库全量重建，修正增量维护中可能出现的偏差（如其他实例的写入）
+     */
+    @Scheduled(initialDelayString = "${product.facet.reconcile-interval:600000}",
+            fixedDelayString = "${product.facet.reconcile-interval:600000}")
+    public void reconcile() {
+        reconciling = true;
+        try {
+            Map<Long, Product> builtActive = new HashMap<>();
+            Map<String, Facet> builtFacets = new HashMap<>();
+            for (Product product : productMapper.selectActiveFacetRows()) {
+                builtActive.put(product.getId(), product);
+                builtFacets.computeIfAbsent(product.getCategory(), k -> new Facet()).add(product);
+            }
+            synchronized (this) {
+                active = builtActive;
+                facets = builtFacets;
+                refreshSnapshot();
+            }
+        } catch (Exception e) {
+            log.error("分类汇总对账失败", e);
+        } finally {
+            reconciling = false;
+        }
+        Iterator<Long> it = changedDuringReconcile.iterator();
+        while (it.hasNext()) {
+            Long id = it.next();
+            it.remove();
+            refresh(id);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.SHIPPED_CHANGED) {
+            return;
+        }
+        if (reconciling) {
+            changedDuringReconcile.add(event.getProductId());
+        }
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            apply(event.getProductId(), null);
+        } else {
+            refresh(event.getProductId());
+        }
+    }
+
+    /**
+     * 按数据库当前状态更新一个商品，非在售商品从统计中扣除
+     */
+    private void refresh(Long id) {
+        Product product = productMapper.selectFacetById(id);
+        apply(id, product != null && product.getStatus() != null && product.getStatus() == 0 ? product : null);
+    }
+
+    private synchronized void apply(Long id, Product current) {
+        Product previous = current == null ? active.remove(id) : active.put(id, current);
+        if (previous != null) {
+            Facet facet = facets.get(previous.getCategory());
+            if (facet != null) {
+                facet.remove(previous);
+                if (facet.count == 0) {
+                    facets.remove(previous.getCategory());
+                }
+            }
+        }
+        if (current != null) {
+            facets.computeIfAbsent(current.getCategory(), k -> new Facet()).add(current);
+        }
+        refreshSnapshot();
+    }
+
+    private void refreshSnapshot() {
+        List<CategorySummaryDTO> summary = new ArrayList<>(facets.size());
+        for (Map.Entry<String, Facet> entry : facets.entrySet()) {
+            Facet facet = entry.getValue();
+            CategorySummaryDTO dto = new CategorySummaryDTO();
+            dto.setCategory(entry.getKey());
+            dto.setCount(facet.count);
+            dto.setNewestTime(facet.times.isEmpty() ? null : facet.times.lastKey());
+            dto.setMinPrice(facet.prices.isEmpty() ? null : facet.prices.firstKey());
+            dto.setMaxPrice(facet.prices.isEmpty() ? null : facet.prices.lastKey());
+            summary.add(dto);
+        }
+        summary.sort((a, b) -> Integer.compare(b.getCount(), a.getCount()));
+        snapshot = Collections.unmodifiableList(summary);
+    }
+
+    private static class Facet {
+        int count;
+        final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+        final TreeMap<LocalDateTime, Integer> times = new TreeMap<>();
+
+        void add(Product product) {
+            count++;
+            if (product.getPrice() != null) {
+                prices.merge(product.getPrice(), 1, Integer::sum);
+            }
+            if (product.getCreateTime() != null) {
+                times.merge(product.getCreateTime(), 1, Integer::sum);
+            }
+        }
+
+        void remove(Product product) {
+            count--;
+            if (product.getPrice() != null) {
+                decrement(prices, product.getPrice());
+            }
+            if (product.getCreateTime() != null) {
+                decrement(times, product.getCreateTime());
+            }
+        }
+
+        private static <K> void decrement(TreeMap<K, Integer> multiset, K key) {
+            multiset.computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.cshp.product.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上传图片多尺寸生成
+ * 原图保存后在后台线程池中生成缩略图、列表卡片图和详情图，
+ * 变体与原图同目录，文件名为 原名_尺寸.扩展名，未生成的尺寸访问时回退到原图
+ */
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+
+    /**
+     * 图片尺寸，按最长边等比缩放，原图不大于目标尺寸时不生成
+     */
+    public enum Size {
+        THUMB("thumb", 200),
+        CARD("card", 480),
+        DETAIL("detail", 1200);
+
+        private final String name;
+        private final int maxEdge;
+
+        Size(String name, int maxEdge) {
+            this.name = name;
+            this.maxEdge = maxEdge;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Size of(String name) {
+            for (Size size : values()) {
+                if (size.name.equalsIgnoreCase(name)) {
+                    return size;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * ImageIO 能够无损处理的格式，gif（动图）和 webp 只保留原图
+     */
+    private static final Set<String> RESIZABLE_EXTENSIONS;
+
+    static {
+        Set<String> extensions = new HashSet<>();
+        extensions.add("jpg");
+        extensions.add("jpeg");
+        extensions.add("png");
+        extensions.add("bmp");
+        RESIZABLE_EXTENSIONS = Collections.unmodifiableSet(extensions);
+    }
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.upload.variant.threads:2}")
+    private int threads;
+
+    @Value("${file.upload.variant.queue-capacity:200}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "image-variant-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交变体生成任务，队列已满时放弃生成，访问时回退到原图
+     *
+     * @param storedPath 原图相对路径，如 2025/11/22/xxx.png
+     */
+    public void submit(String storedPath) {
+        if (!isResizable(storedPath)) {
+            return;
+        }
+        try {
+            executor.execute(() -> generate(storedPath));
+        } catch (RejectedExecutionException e) {
+            log.warn("图片处理队列已满，跳过生成尺寸变体: {}", storedPath);
+        }
+    }
+
+    /**
+     * 可访问的各尺寸 URL 参数，key 为尺寸名
+     */
+    public Map<String, String> variantUrls(String url) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (Size size : Size.values()) {
+            urls.put(size.getName(), url + "?size=" + size.getName());
+        }
+        return urls;
+    }
+
+    /**
+     * 变体相对路径，原图格式不支持缩放时返回 null
+     */
+    public String variantPath(String storedPath, Size size) {
+        if (!isResizable(storedPath)) {
+            return null;
+        }
+        int dot = storedPath.lastIndexOf('.');
+        return storedPath.substring(0, dot) + "_" + size.getName() + storedPath.substring(dot);
+    }
+
+    /**
+     * 是否为变体文件或变体的临时文件，如 xxx_thumb.png、xxx_thumb.png.tmp
+     */
+    public boolean isVariant(String fileName) {
+        String name = fileName.endsWith(".tmp") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        for (Size size : Size.values()) {
+            if (base.endsWith("_" + size.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 删除原图对应的所有变体
+     */
+    public void deleteVariants(String storedPath) {
+        for (Size size : Size.values()) {
+            String variant = variantPath(storedPath, size);
+            if (variant == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(Paths.get(uploadPath, variant));
+            } catch (IOException e) {
+                log.warn("删除图片变体失败: {}", variant, e);
+            }
+        }
+    }
+
+    private void generate(String storedPath) {
+        Path original = Paths.get(uploadPath, storedPath);
+        try {
+            BufferedImage source = ImageIO.read(original.toFile());
+            if (source == null) {
+                log.warn("无法解析图片，跳过生成尺寸变体: {}", storedPath);
+                return;
+            }
+            String format = formatOf(storedPath);
+            int longest = Math.max(source.getWidth(), source.getHeight());
+            // 从大到小生成，较小尺寸在上一个变体基础上缩放，减少像素处理量
+            Size[] sizes = Size.values();
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                Size size = sizes[i];
+                if (longest <= size.maxEdge) {
+                    continue;
+                }
+                source = resize(source, size.maxEdge, "png".equals(format));
+                writeAtomically(source, format, Paths.get(uploadPath, variantPath(storedPath, size)));
+            }
+            log.debug("图片尺寸变体生成完成: {}", storedPath);
+        } catch (Exception e) {
+            log.error("图片尺寸变体生成失败: {}", storedPath, e);
+        }
+    }
+
+    /**
+     * 等比缩放到最长边为 maxEdge，大比例缩小时逐次减半以保证质量
+     */
+    private BufferedImage resize(BufferedImage source, int maxEdge, boolean keepAlpha) {
+        double scale = (double) maxEdge / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免读到写了一半的变体
+     */
+    private void writeAtomically(BufferedImage image, String format, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                log.warn("没有可用的图片编码器: {}", format);
+                return;
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private boolean isResizable(String storedPath) {
+        return RESIZABLE_EXTENSIONS.contains(formatOf(storedPath));
+    }
+
+    private String formatOf(String storedPath) {
+        int dot = storedPath.lastIndexOf('.');
+        String extension = dot < 0 ? "" : storedPath.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return "jpeg".equals(extension) ? "jpg" : extension;
+    }
+}
@@ -0,0 +1,130 @@
+package com.cshp.product.component;
+
+import com.cshp.product.dto.ProductDTO;
+import com.cshp.product.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 商品详情本地缓存
+ * 按容量和写入时间淘汰，商品变更事务提交后失效对应条目
+ */
+@Component
+public class ProductCache {
+
+    @Value("${product.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<Long, ProductDTO> cache;
+
+    /**
+     * 失效次数，批量回填前后对比，期间有失效则放弃回填
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 读取缓存，未命中时调用 loader 加载
+     * 返回副本，调用方修改不会污染缓存
+     */
+    public ProductDTO get(Long id, Function<Long, ProductDTO> loader) {
+        ProductDTO cached = cache.get(id, loader);
+        return cached == null ? null : copy(cached);
+    }
+
+    /**
+     * 只读缓存，不触发加载，未命中返回 null
+     */
+    public ProductDTO getIfPresent(Long id) {
+        ProductDTO cached = cache.getIfPresent(id);
+        return cached == null ? null : copy(cached);
+    }
+
+    /**
+     * 在数据库读取之前取得，传给 putIfNotInvalidated
+     */
+    public long invalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * 批量读库后的回填：读取之后如有任何条目失效（变更已提交）则不写入，避免旧数据覆盖失效。
+     * 检查和写入在同一个 compute 内完成，并发的 invalidate 会等待它结束后再删除
+     */
+    public void putIfNotInvalidated(ProductDTO product, long invalidationCount) {
+        cache.asMap().compute(product.getId(), (id, cached) -> {
+            if (cached != null || invalidations.get() != invalidationCount) {
+                return cached;
+            }
+            return copy(product);
+        });
+    }
+
+    public void invalidate(Long id) {
+        invalidations.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    /**
+     * 浏览量写回数据库后同步累加到已缓存的条目，避免展示值在过期前回退
+     */
+    public void addViewCounts(Map<Long, Long> deltas) {
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            cache.asMap().computeIfPresent(entry.getKey(), (id, cached) -> {
+                ProductDTO updated = copy(cached);
+                int viewCount = updated.getViewCount() == null ? 0 : updated.getViewCount();
+                updated.setViewCount((int) (viewCount + entry.getValue()));
+                return updated;
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.getProductId());
+    }
+
+    /**
+     * 缓存命中统计（监控用）
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private ProductDTO copy(ProductDTO source) {
+        ProductDTO target = new ProductDTO();
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+}
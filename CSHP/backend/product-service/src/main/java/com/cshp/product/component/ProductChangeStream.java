@@ -0,0 +1,321 @@
+package com.cshp.product.component;
+
+import com.cshp.product.dto.ProductChangeDTO;
+import com.cshp.product.dto.ProductChangeFeedDTO;
+import com.cshp.product.entity.ProductOutbox;
+import com.cshp.product.mapper.ProductOutboxMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 商品变更流（发件箱中继）
+ * 商品写操作在同一事务内写入 product_outbox，本组件按 id 顺序轮询发件箱并推进水位线，
+ * 水位线以内的变更保证已提交且不会再出现更小的偏移量，再分发给进程内订阅者和等待中的长轮询请求
+ * 自增 id 可能因并发事务乱序提交而出现空洞，空洞持续超过 gap-timeout 才视为回滚并跳过；
+ * 跳过的偏移量在 late-recheck 时长内继续复查，期间才提交的变更以新的偏移量重新写入发件箱，
+ * 按正常顺序再分发一次。复查期过后才提交的变更会丢失，消费方需定期全量重建或核对
+ * 变更记录只作通知，消费方按商品当前状态处理，重复收到同一商品的变更无害
+ * 订阅者处理失败时停在失败的变更上，下一轮中继从该偏移量重新读取发件箱重试
+ */
+@Slf4j
+@Component
+public class ProductChangeStream {
+
+    @Autowired
+    private ProductOutboxMapper outboxMapper;
+
+    @Value("${product.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${product.outbox.gap-timeout:5000}")
+    private long gapTimeout;
+
+    @Value("${product.outbox.late-recheck:600000}")
+    private long lateRecheck;
+
+    @Value("${product.outbox.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * 同时复查的跳过偏移量上限，超出时放弃最早的
+     */
+    private static final int MAX_SKIPPED = 1000;
+
+    /**
+     * 已确认可见的最大偏移量，-1 表示尚未初始化
+     */
+    private volatile long watermark = -1;
+
+    private long gapOffset = -1;
+
+    private long gapSince;
+
+    /**
+     * 已跳过、仍在复查期内的偏移量 -> 跳过时间，按跳过顺序排列
+     */
+    private final Map<Long, Long> skipped = new LinkedHashMap<>();
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 在其他组件的启动任务之前完成，订阅方启动时即可取得有效的水位线
+     */
+    @PostConstruct
+    public synchronized void init() {
+        Long maxId = outboxMapper.selectMaxId();
+        watermark = maxId == null ? 0 : maxId;
+        log.info("商品变更流从偏移量 {} 开始中继", watermark);
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * 读取 after 之后、水位线以内的变更
+     */
+    public ProductChangeFeedDTO read(long after, int limit) {
+        List<ProductChangeDTO> changes = new ArrayList<>();
+        long current = watermark;
+        if (current > after) {
+            for (ProductOutbox row : outboxMapper.selectRange(after, current, limit)) {
+                changes.add(toDTO(row));
+            }
+        }
+        ProductChangeFeedDTO feed = new ProductChangeFeedDTO();
+        feed.setChanges(changes);
+        feed.setNextOffset(changes.isEmpty() ? after : changes.get(changes.size() - 1).getOffset());
+        return feed;
+    }
+
+    /**
+     * 进程内订阅：先补发 fromOffset 之后已有的变更，再接收后续实时变更，顺序与偏移量一致
+     */
+    public synchronized Subscription subscribe(long fromOffset, Consumer<ProductChangeDTO> handler) {
+        Subscription subscription = new Subscription(fromOffset, handler);
+        while (subscription.offset < watermark) {
+            if (!subscription.catchUp()) {
+                // 处理失败的变更留给中继重试
+                break;
+            }
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * 有 after 之后的新变更时回调一次，用于长轮询；返回值用于取消等待
+     */
+    public Runnable onAvailable(long after, Runnable callback) {
+        Waiter waiter = new Waiter(after, callback);
+        waiters.add(waiter);
+        if (watermark > after && waiters.remove(waiter)) {
+            callback.run();
+        }
+        return () -> waiters.remove(waiter);
+    }
+
+    @Scheduled(fixedDelayString = "${product.outbox.poll-interval:200}")
+    public synchronized void relay() {
+        if (watermark < 0) {
+            return;
+        }
+        recheckSkipped();
+        long previous = watermark;
+        List<ProductOutbox> rows = outboxMapper.selectRange(watermark, null, batchSize);
+        List<ProductChangeDTO> accepted = new ArrayList<>(rows.size());
+        long next = watermark;
+        for (ProductOutbox row : rows) {
+            if (row.getId() != next + 1) {
+                // 更小的偏移量可能属于尚未提交的事务，先等待
+                long now = System.currentTimeMillis();
+                if (gapOffset != next + 1) {
+                    gapOffset = next + 1;
+                    gapSince = now;
+                    break;
+                }
+                if (now - gapSince < gapTimeout) {
+                    break;
+                }
+                log.warn("变更流偏移量 ({}, {}) 超时未出现，视为事务回滚跳过", next, row.getId());
+                gapOffset = -1;
+                for (long offset = next + 1; offset < row.getId(); offset++) {
+                    skipped.put(offset, now);
+                }
+            }
+            next = row.getId();
+            accepted.add(toDTO(row));
+        }
+        watermark = next;
+
+        for (Subscription subscription : subscriptions) {
+            if (subscription.offset == previous) {
+                subscription.deliver(accepted);
+            } else if (subscription.offset < next) {
+                // 之前处理失败落在后面，从失败的偏移量重新读取
+                subscription.catchUp();
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        Iterator<Waiter> it = waiters.iterator();
+        while (it.hasNext()) {
+            Waiter waiter = it.next();
+            if (waiter.after < next && waiters.remove(waiter)) {
+                waiter.callback.run();
+            }
+        }
+    }
+
+    /**
+     * 复查已跳过的偏移量：已经提交的变更复制一份重新写入发件箱，获得水位线之后的新偏移量，
+     * 由下一轮中继按顺序分发；原记录在水位线以内，只有落后的消费方会再读到一次
+     */
+    private void recheckSkipped() {
+        if (skipped.isEmpty()) {
+            return;
+        }
+        long expireBefore = System.currentTimeMillis() - lateRecheck;
+        Iterator<Map.Entry<Long, Long>> it = skipped.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Long> entry = it.next();
+            if (entry.getValue() >= expireBefore && skipped.size() <= MAX_SKIPPED) {
+                break;
+            }
+            log.warn("变更流偏移量 {} 跳过后超过复查期仍未出现，不再复查", entry.getKey());
+            it.remove();
+        }
+        if (skipped.isEmpty()) {
+            return;
+        }
+
+        List<ProductOutbox> late = outboxMapper.selectBatchIds(new ArrayList<>(skipped.keySet()));
+        if (late.isEmpty()) {
+            return;
+        }
+        List<ProductOutbox> copies = new ArrayList<>(late.size());
+        for (ProductOutbox row : late) {
+            ProductOutbox copy = new ProductOutbox();
+            copy.setProductId(row.getProductId());
+            copy.setEventType(row.getEventType());
+            copy.setCreateTime(row.getCreateTime());
+            copies.add(copy);
+        }
+        outboxMapper.insertBatch(copies);
+        for (ProductOutbox row : late) {
+            skipped.remove(row.getId());
+            log.warn("变更流偏移量 {} 在跳过后才提交，已重新发布", row.getId());
+        }
+    }
+
+    /**
+     * 清理超过保留期的发件箱记录
+     */
+    @Scheduled(cron = "${product.outbox.cleanup-cron:0 30 3 * * ?}")
+    public void cleanup() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = outboxMapper.deleteBefore(before, 1000);
+            total += deleted;
+        } while (deleted > 0);
+        if (total > 0) {
+            log.info("清理商品变更发件箱 {} 条", total);
+        }
+    }
+
+    private ProductChangeDTO toDTO(ProductOutbox row) {
+        ProductChangeDTO dto = new ProductChangeDTO();
+        dto.setOffset(row.getId());
+        dto.setProductId(row.getProductId());
+        dto.setType(row.getEventType());
+        dto.setTime(row.getCreateTime());
+        return dto;
+    }
+
+    /**
+     * 进程内订阅，cancel 后不再接收变更
+     */
+    public class Subscription {
+        private volatile long offset;
+        private final Consumer<ProductChangeDTO> handler;
+
+        Subscription(long offset, Consumer<ProductChangeDTO> handler) {
+            this.offset = offset;
+            this.handler = handler;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+
+        /**
+         * 从当前偏移量读取一批变更并处理，水位线以内已没有记录（已清理或为空洞）时直接追到水位线
+         *
+         * @return 全部处理成功
+         */
+        private boolean catchUp() {
+            long upTo = watermark;
+            List<ProductChangeDTO> changes = read(offset, batchSize).getChanges();
+            if (changes.isEmpty()) {
+                offset = Math.max(offset, upTo);
+                return true;
+            }
+            return deliver(changes);
+        }
+
+        /**
+         * 按顺序处理，失败时停在该变更上不推进偏移量
+         *
+         * @return 全部处理成功
+         */
+        private boolean deliver(List<ProductChangeDTO> changes) {
+            for (ProductChangeDTO change : changes) {
+                if (change.getOffset() <= offset) {
+                    continue;
+                }
+                try {
+                    handler.accept(change);
+                } catch (Exception e) {
+                    log.error("商品变更订阅处理失败，下一轮中继重试，偏移量: {}", change.getOffset(), e);
+                    return false;
+                }
+                offset = change.getOffset();
+            }
+            return true;
+        }
+    }
+
+    private static class Waiter {
+        final long after;
+        final Runnable callback;
+
+        Waiter(long after, Runnable callback) {
+            this.after = after;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.cshp.product.component;
+
+import com.cshp.product.dto.ProductChangeDTO;
+import com.cshp.product.entity.Product;
+import com.cshp.product.event.ProductChangedEvent;
+import com.cshp.product.mapper.ProductMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品全文倒排索引
+ * 索引在售商品的标题和描述，启动后全量构建，之后订阅商品变更流增量维护，
+ * 变更流来自数据库发件箱，其他实例上的商品写操作也会同步到本实例的索引；
+ * 另按 rebuild-interval 定期全量重建，修正变更流复查期后才提交、未能分发的变更
+ * 查询为各词倒排表求交集，按相关度和发布时间排序
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final int BUILD_BATCH_SIZE = 500;
+
+    private static final double TITLE_WEIGHT = 3.0;
+
+    /**
+     * 最后一个英文词按前缀匹配时最多展开的词数
+     */
+    private static final int MAX_PREFIX_EXPANSION = 50;
+
+    /**
+     * 发布时间加权的衰减天数，越新的商品最多获得一倍加权
+     */
+    private static final double RECENCY_DECAY_DAYS = 30.0;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductChangeStream changeStream;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Index index = new Index();
+
+    private volatile boolean ready = false;
+
+    private volatile ProductChangeStream.Subscription subscription;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread builder = new Thread(this::rebuild, "product-search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(initialDelayString = "${product.search.rebuild-interval:3600000}",
+            fixedDelayString = "${product.search.rebuild-interval:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 全量构建索引，首次构建期间查询由调用方回退到数据库，重建期间继续使用旧索引
+     * 构建前记下变更流偏移量，构建完成后从该偏移量重新订阅，构建期间的变更由订阅补发
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        long fromOffset = changeStream.getWatermark();
+        try {
+            Index built = new Index();
+            LocalDateTime cursorTime = null;
+            Long cursorId = null;
+            while (true) {
+                List<Product> batch = productMapper.selectActivePage(cursorTime, cursorId, BUILD_BATCH_SIZE);
+                for (Product product : batch) {
+                    built.add(product);
+                }
+                if (batch.size() < BUILD_BATCH_SIZE) {
+                    break;
+                }
+                Product last = batch.get(batch.size() - 1);
+                cursorTime = last.getCreateTime();
+                cursorId = last.getId();
+            }
+
+            lock.writeLock().lock();
+            try {
+                index = built;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            subscription = changeStream.subscribe(fromOffset, this::onChange);
+            log.info("商品搜索索引构建完成，商品 {} 个，词项 {} 个，耗时 {} ms",
+                    built.docs.size(), built.postings.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("商品搜索索引构建失败，搜索将回退到数据库查询", e);
+        }
+    }
+
+    private void onChange(ProductChangeDTO change) {
+        if (ProductChangedEvent.Type.SHIPPED_CHANGED.name().equals(change.getType())) {
+            return;
+        }
+        if (ProductChangedEvent.Type.DELETED.name().equals(change.getType())) {
+            remove(change.getProductId());
+        } else {
+            reindex(change.getProductId());
+        }
+    }
+
+    /**
+     * 按数据库当前状态重新索引，非在售商品从索引中移除
+     */
+    public void reindex(Long id) {
+        Product product = productMapper.selectById(id);
+        if (product == null || product.getStatus() == null || product.getStatus() != 0) {
+            remove(id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            index.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索在售商品
+     *
+     * @return 按相关度和发布时间排序后 [offset, offset + limit) 范围内的商品ID
+     */
+    public List<Long> search(String keyword, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenizeForQuery(keyword)));
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        boolean expandLast = keyword != null && !keyword.isEmpty()
+                && Character.isLetterOrDigit(keyword.charAt(keyword.length() - 1))
+                && !isHanTerm(terms.get(terms.size() - 1));
+
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            List<Clause> clauses = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = expandLast && i == terms.size() - 1;
+                Clause clause = current.clause(terms.get(i), prefix);
+                if (clause.docs.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                clauses.add(clause);
+            }
+            clauses.sort((a, b) -> Integer.compare(a.docs.size(), b.docs.size()));
+
+            List<ScoredDoc> matches = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            int total = current.docs.size();
+            for (Long id : clauses.get(0).docs) {
+                boolean all = true;
+                for (int i = 1; i < clauses.size() && all; i++) {
+                    all = clauses.get(i).docs.contains(id);
+                }
+                if (all) {
+                    IndexedProduct doc = current.docs.get(id);
+                    matches.add(new ScoredDoc(id, doc.createTime, score(doc, clauses, total, now)));
+                }
+            }
+            matches.sort((a, b) -> {
+                int c = Double.compare(b.score, a.score);
+                if (c != 0) {
+                    return c;
+                }
+                if (a.createTime != null && b.createTime != null) {
+                    c = b.createTime.compareTo(a.createTime);
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return Long.compare(b.id, a.id);
+            });
+
+            List<Long> result = new ArrayList<>();
+            for (int i = offset; i < matches.size() && result.size() < limit; i++) {
+                result.add(matches.get(i).id);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引状态（监控用）
+     */
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("ready", ready);
+            stats.put("documents", index.docs.size());
+            stats.put("terms", index.postings.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double score(IndexedProduct doc, List<Clause> clauses, int total, LocalDateTime now) {
+        double relevance = 0;
+        for (Clause clause : clauses) {
+            double idf = Math.log(1.0 + (double) total / clause.docs.size());
+            double tf = 0;
+            for (String term : clause.terms) {
+                int[] freq = doc.termFreqs.get(term);
+                if (freq != null) {
+                    tf += TITLE_WEIGHT * freq[0] + freq[1];
+                }
+            }
+            relevance += tf * idf;
+        }
+        if (doc.createTime == null) {
+            return relevance;
+        }
+        double ageDays = Math.max(0, Duration.between(doc.createTime, now).toHours() / 24.0);
+        return relevance * (1.0 + 1.0 / (1.0 + ageDays / RECENCY_DECAY_DAYS));
+    }
+
+    private static boolean isHanTerm(String term) {
+        return Character.UnicodeScript.of(term.codePointAt(0)) == Character.UnicodeScript.HAN;
+    }
+
+    /**
+     * 倒排表和正排信息，只在持有锁时访问
+     */
+    private static class Index {
+        final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+        final Map<Long, IndexedProduct> docs = new HashMap<>();
+
+        void add(Product product) {
+            remove(product.getId());
+            Map<String, int[]> termFreqs = new HashMap<>();
+            for (String term : SearchTokenizer.tokenizeForIndex(product.getTitle())) {
+                termFreqs.computeIfAbsent(term, t -> new int[2])[0]++;
+            }
+            for (String term : SearchTokenizer.tokenizeForIndex(product.getDescription())) {
+                termFreqs.computeIfAbsent(term, t -> new int[2])[1]++;
+            }
+            for (String term : termFreqs.keySet()) {
+                postings.computeIfAbsent(term, t -> new HashSet<>()).add(product.getId());
+            }
+            docs.put(product.getId(), new IndexedProduct(product.getCreateTime(), termFreqs));
+        }
+
+        void remove(Long id) {
+            IndexedProduct doc = docs.remove(id);
+            if (doc == null) {
+                return;
+            }
+            for (String term : doc.termFreqs.keySet()) {
+                Set<Long> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        Clause clause(String term, boolean prefix) {
+            if (!prefix) {
+                Set<Long> ids = postings.get(term);
+                return new Clause(Collections.singletonList(term), ids == null ? Collections.<Long>emptySet() : ids);
+            }
+            SortedMap<String, Set<Long>> expanded = postings.subMap(term, term + Character.MAX_VALUE);
+            List<String> terms = new ArrayList<>();
+            Set<Long> ids = new HashSet<>();
+            for (Map.Entry<String, Set<Long>> entry : expanded.entrySet()) {
+                if (terms.size() >= MAX_PREFIX_EXPANSION) {
+                    break;
+                }
+                terms.add(entry.getKey());
+                ids.addAll(entry.getValue());
+            }
+            return new Clause(terms, ids);
+        }
+    }
+
+    private static class IndexedProduct {
+        final LocalDateTime createTime;
+        /**
+         * 词 -> [标题词频, 描述词频]
+         */
+        final Map<String, int[]> termFreqs;
+
+        IndexedProduct(LocalDateTime createTime, Map<String, int[]> termFreqs) {
+            this.createTime = createTime;
+            this.termFreqs = termFreqs;
+        }
+    }
+
+    /**
+     * 查询中的一个词及其匹配的商品，前缀匹配时包含多个展开词
+     */
+    private static class Clause {
+        final List<String> terms;
+        final Set<Long> docs;
+
+        Clause(List<String> terms, Set<Long> docs) {
+            this.terms = terms;
+            this.docs = docs;
+        }
+    }
+
+    private static class ScoredDoc {
+        final Long id;
+        final LocalDateTime createTime;
+        final double score;
+
+        ScoredDoc(Long id, LocalDateTime createTime, double score) {
+            this.id = id;
+            this.createTime = createTime;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.cshp.product.component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 商品搜索分词器
+ * 拉丁字母和数字按连续片段切成小写单词，汉字按单字和相邻二元组切分
+ * 索引时同时保留单字和二元组，查询时多字片段只用二元组，单字片段用单字
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 索引用分词
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询用分词
+     */
+    public static List<String> tokenizeForQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean forIndex) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isHan(codePoint)) {
+                int start = i;
+                while (i < length && isHan(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                addHanTokens(text.substring(start, i), forIndex, tokens);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length) {
+                    int cp = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(cp) || isHan(cp)) {
+                        break;
+                    }
+                    i += Character.charCount(cp);
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addHanTokens(String run, boolean forIndex, List<String> tokens) {
+        int[] chars = run.codePoints().toArray();
+        if (chars.length == 1 || forIndex) {
+            for (int c : chars) {
+                tokens.add(new String(Character.toChars(c)));
+            }
+        }
+        for (int k = 0; k + 1 < chars.length; k++) {
+            tokens.add(new String(chars, k, 2));
+        }
+    }
+
+    private static boolean isHan(int codePoint) {
+        return Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+    }
+}
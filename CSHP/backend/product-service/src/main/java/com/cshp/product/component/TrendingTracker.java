@@ -0,0 +1,220 @@
+package com.cshp.product.component;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热门商品排行（滑动时间窗口）
+ * 浏览只累加到当前桶；定时任务每次刷新时原子地换下当前桶，把它的计数增量合并进小时、天两个窗口的累计值，
+ * 同时扣除滑出窗口的分钟桶。每个窗口的累计值另按 (浏览量, 商品ID) 有序保存，
+ * 只有本次变化的商品需要调整位置，排行取有序集合的前 K 项，查询直接读快照
+ */
+@Component
+public class TrendingTracker {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private static final Comparator<long[]> BY_VIEWS_DESC =
+            (a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]);
+
+    public enum Window {
+        HOUR(60),
+        DAY(24 * 60);
+
+        private final int minutes;
+
+        Window(int minutes) {
+            this.minutes = minutes;
+        }
+
+        public static Window of(String name) {
+            for (Window window : values()) {
+                if (window.name().equalsIgnoreCase(name)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Value("${product.trending.top-k:50}")
+    private int topK;
+
+    private volatile Bucket currentBucket = new Bucket();
+
+    /**
+     * 已换下的计数按分钟合并，每个窗口各自保存仍在窗口内的分钟，滑出时按保存的计数精确扣减
+     */
+    private final Map<Window, Deque<MinuteCounts>> closedBuckets = new HashMap<>();
+
+    private final Map<Window, Map<Long, Long>> windowTotals = new HashMap<>();
+
+    /**
+     * 与 windowTotals 内容相同，按浏览量降序、商品ID升序排列
+     */
+    private final Map<Window, TreeSet<long[]>> rankedTotals = new HashMap<>();
+
+    private volatile Map<Window, List<long[]>> ranking = Collections.emptyMap();
+
+    public TrendingTracker() {
+        for (Window window : Window.values()) {
+            closedBuckets.put(window, new ArrayDeque<>());
+            windowTotals.put(window, new HashMap<>());
+            rankedTotals.put(window, new TreeSet<>(BY_VIEWS_DESC));
+        }
+    }
+
+    /**
+     * 记录一次浏览，无锁累加；写入期间桶被换下时重试到新桶，换桶方会等待在途的写入完成
+     */
+    public void record(Long productId) {
+        for (;;) {
+            Bucket bucket = currentBucket;
+            bucket.writers.incrementAndGet();
+            try {
+                if (bucket == currentBucket) {
+                    bucket.counts.computeIfAbsent(productId, id -> new LongAdder()).increment();
+                    return;
+                }
+            } finally {
+                bucket.writers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 窗口内浏览最多的商品，每项为 {商品ID, 浏览量}，按浏览量降序
+     */
+    public List<long[]> getTop(Window window, int limit) {
+        List<long[]> top = ranking.get(window);
+        if (top == null) {
+            return Collections.emptyList();
+        }
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    @Scheduled(fixedDelayString = "${product.trending.refresh-interval:5000}")
+    public void refresh() {
+        advance(System.currentTimeMillis());
+    }
+
+    /**
+     * 换下当前桶、合并增量并扣除滑出窗口的分钟，只由定时任务单线程调用
+     */
+    synchronized void advance(long nowMillis) {
+        long nowMinute = nowMillis / MINUTE_MILLIS;
+        Bucket closing = currentBucket;
+        currentBucket = new Bucket();
+        while (closing.writers.get() > 0) {
+            Thread.yield();
+        }
+        fold(nowMinute, snapshot(closing.counts));
+        for (Window window : Window.values()) {
+            expire(window, nowMinute);
+        }
+
+        Map<Window, List<long[]>> updated = new HashMap<>();
+        for (Window window : Window.values()) {
+            List<long[]> top = new ArrayList<>(topK);
+            for (long[] entry : rankedTotals.get(window)) {
+                if (top.size() >= topK) {
+                    break;
+                }
+                top.add(entry);
+            }
+            updated.put(window, Collections.unmodifiableList(top));
+        }
+        ranking = updated;
+    }
+
+    private void fold(long minute, Map<Long, Long> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        // 同一分钟内多次刷新的增量合并到同一个分钟桶，各窗口共享同一个对象
+        Deque<MinuteCounts> hourBuckets = closedBuckets.get(Window.HOUR);
+        MinuteCounts last = hourBuckets.peekLast();
+        if (last != null && last.minute == minute) {
+            for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+                last.counts.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        } else {
+            MinuteCounts bucket = new MinuteCounts(minute, new HashMap<>(counts));
+            for (Window window : Window.values()) {
+                closedBuckets.get(window).addLast(bucket);
+            }
+        }
+        for (Window window : Window.values()) {
+            for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+                adjust(window, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void expire(Window window, long nowMinute) {
+        Deque<MinuteCounts> buckets = closedBuckets.get(window);
+        // 当前分钟也算在窗口内，因此只保留最近 minutes 个分钟（含当前分钟）
+        while (!buckets.isEmpty() && buckets.peekFirst().minute <= nowMinute - window.minutes) {
+            MinuteCounts expired = buckets.pollFirst();
+            for (Map.Entry<Long, Long> entry : expired.counts.entrySet()) {
+                adjust(window, entry.getKey(), -entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 调整一个商品的窗口累计值，并在有序集合中移动到新位置，复杂度 O(log n)
+     */
+    private void adjust(Window window, long productId, long delta) {
+        Map<Long, Long> totals = windowTotals.get(window);
+        TreeSet<long[]> ranked = rankedTotals.get(window);
+        Long previous = totals.get(productId);
+        long updated = (previous == null ? 0 : previous) + delta;
+        if (previous != null) {
+            ranked.remove(new long[]{productId, previous});
+        }
+        if (updated > 0) {
+            totals.put(productId, updated);
+            ranked.add(new long[]{productId, updated});
+        } else {
+            totals.remove(productId);
+        }
+    }
+
+    private static Map<Long, Long> snapshot(Map<Long, LongAdder> bucket) {
+        Map<Long, Long> counts = new HashMap<>(bucket.size() * 2);
+        for (Map.Entry<Long, LongAdder> entry : bucket.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    private static class Bucket {
+        final ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+        final AtomicInteger writers = new AtomicInteger();
+    }
+
+    private static class MinuteCounts {
+        final long minute;
+        final Map<Long, Long> counts;
+
+        MinuteCounts(long minute, Map<Long, Long> counts) {
+            this.minute = minute;
+            this.counts = counts;
+        }
+    }
+}
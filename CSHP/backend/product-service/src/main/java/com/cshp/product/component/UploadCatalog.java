@@ -0,0 +1,230 @@
+package com.cshp.product.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 上传文件目录统计：文件数、总字节数、按日期目录的字节数
+ * 启动时按两级哈希前缀（或日期）目录切分、并行遍历一次上传目录建立，之后随上传和删除增量更新，查询时不再访问磁盘
+ * 只统计原图，不包括尺寸变体和 tmp、chunked 下未完成的临时文件
+ * 内容寻址存储的文件没有日期目录，按写入日期归类
+ */
+@Slf4j
+@Component
+public class UploadCatalog {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private static final Pattern DATED_PATH = Pattern.compile("^\\d{4}/\\d{2}/\\d{2}/.+");
+
+    /**
+     * 并行遍历的切分深度：sha256/ab/cd 或 yyyy/MM/dd 这一层的每个目录是一个任务，
+     * 内容寻址模式下几乎所有文件都在 sha256/ 下，只按顶层目录切分时实际是串行的
+     */
+    private static final int PARTITION_DEPTH = 3;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Autowired
+    private ImageVariantGenerator imageVariantGenerator;
+
+    private final LongAdder fileCount = new LongAdder();
+
+    private final LongAdder totalBytes = new LongAdder();
+
+    private final Map<String, LongAdder> bytesByDay = new ConcurrentHashMap<>();
+
+    private volatile long rebuildMillis;
+
+    /**
+     * 在 Web 服务开始接收请求前完成，避免遍历与上传、删除并发导致重复计数
+     */
+    @PostConstruct
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            log.info("上传目录不存在，跳过统计: {}", root);
+            return;
+        }
+
+        // 先串行列出前两层，按第三层目录（两级哈希前缀或日期目录）拆分，各子树并行遍历
+        List<Path> units = new ArrayList<>();
+        WalkResult shallow = new WalkResult();
+        try {
+            partition(root, root, 1, units, shallow);
+        } catch (IOException e) {
+            log.error("读取上传目录失败，文件统计不可用: {}", root, e);
+            return;
+        }
+
+        List<WalkResult> results = new ArrayList<>();
+        units.parallelStream().map(unit -> walk(root, unit)).forEachOrdered(results::add);
+        results.add(shallow);
+
+        for (WalkResult result : results) {
+            fileCount.add(result.files);
+            totalBytes.add(result.bytes);
+            result.days.forEach(this::addDayBytes);
+        }
+        rebuildMillis = System.currentTimeMillis() - start;
+        log.info("上传文件统计完成: {} 个文件, {} bytes, 耗时 {} ms", fileCount.sum(), totalBytes.sum(), rebuildMillis);
+    }
+
+    /**
+     * 记录新写入的原图
+     */
+    public void recordAdded(String storedPath, long size) {
+        fileCount.increment();
+        totalBytes.add(size);
+        addDayBytes(dayKey(Paths.get(storedPath), null), size);
+    }
+
+    /**
+     * 记录删除的原图，lastModified 用于确定内容寻址文件所属日期
+     */
+    public void recordRemoved(String storedPath, long size, long lastModified) {
+        fileCount.decrement();
+        totalBytes.add(-size);
+        String day = DATED_PATH.matcher(storedPath).matches()
+                ? storedPath.substring(0, 10)
+                : toDay(lastModified);
+        LongAdder adder = bytesByDay.get(day);
+        if (adder != null) {
+            adder.add(-size);
+        }
+    }
+
+    public long getFileCount() {
+        return fileCount.sum();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.sum();
+    }
+
+    /**
+     * 按日期排序的字节数，key 为 yyyy/MM/dd
+     */
+    public Map<String, Long> getBytesByDay() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : bytesByDay.entrySet()) {
+            long bytes = entry.getValue().sum();
+            if (bytes > 0) {
+                result.put(entry.getKey(), bytes);
+            }
+        }
+        return result;
+    }
+
+    public long getRebuildMillis() {
+        return rebuildMillis;
+    }
+
+    /**
+     * 列出 dir 的直接子项：深度未到 PARTITION_DEPTH 的目录继续展开，到达的目录作为并行任务，
+     * 沿途遇到的文件直接计入 shallow
+     */
+    private void partition(Path root, Path dir, int depth, List<Path> units, WalkResult shallow) throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            for (Path child : (Iterable<Path>) stream::iterator) {
+                if (Files.isDirectory(child)) {
+                    String name = child.getFileName().toString();
+                    if (depth == 1 && ("tmp".equals(name) || "chunked".equals(name))) {
+                        continue;
+                    }
+                    if (depth < PARTITION_DEPTH) {
+                        partition(root, child, depth + 1, units, shallow);
+                    } else {
+                        units.add(child);
+                    }
+                } else if (Files.isRegularFile(child) && isOriginal(child)) {
+                    BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class);
+                    shallow.files++;
+                    shallow.bytes += attrs.size();
+                    shallow.days.merge(dayKey(root.relativize(child), attrs), attrs.size(), Long::sum);
+                }
+            }
+        }
+    }
+
+    private WalkResult walk(Path root, Path dir) {
+        WalkResult result = new WalkResult();
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && isOriginal(file)) {
+                        result.files++;
+                        result.bytes += attrs.size();
+                        result.days.merge(dayKey(root.relativize(file), attrs), attrs.size(), Long::sum);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    log.warn("读取文件失败，跳过统计: {}", file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("遍历上传目录失败: {}", dir, e);
+        }
+        return result;
+    }
+
+    private boolean isOriginal(Path file) {
+        return !imageVariantGenerator.isVariant(file.getFileName().toString());
+    }
+
+    /**
+     * 日期目录下的文件取目录日期，其余文件取修改日期（attrs 为空时取当天）
+     */
+    private String dayKey(Path relativePath, BasicFileAttributes attrs) {
+        String path = relativePath.toString().replace('\\', '/');
+        if (DATED_PATH.matcher(path).matches()) {
+            return path.substring(0, 10);
+        }
+        return attrs == null ? LocalDate.now().format(DAY_FORMAT) : toDay(attrs.lastModifiedTime().toMillis());
+    }
+
+    private String toDay(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate().format(DAY_FORMAT);
+    }
+
+    private void addDayBytes(String day, long bytes) {
+        bytesByDay.computeIfAbsent(day, k -> new LongAdder()).add(bytes);
+    }
+
+    private static class WalkResult {
+        long files;
+        long bytes;
+        final Map<String, Long> days = new HashMap<>();
+    }
+}
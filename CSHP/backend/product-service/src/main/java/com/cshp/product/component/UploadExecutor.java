@@ -0,0 +1,110 @@
+package com.cshp.product.component;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量上传写盘线程池
+ * 全局并发由线程数限制，单个请求同时在途的文件数由 per-request 限制；
+ * 所有请求共享 threads + queue-capacity 个名额，名额在 acquire-timeout 内等不到时该文件返回“繁忙”，
+ * 写盘始终在上传线程中执行，不占用 Tomcat 请求线程
+ */
+@Component
+public class UploadExecutor {
+
+    @Value("${file.upload.batch.threads:8}")
+    private int threads;
+
+    @Value("${file.upload.batch.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${file.upload.batch.per-request:3}")
+    private int perRequest;
+
+    @Value("${file.upload.batch.acquire-timeout:5000}")
+    private long acquireTimeout;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 全局名额，不超过线程数加队列容量，因此提交不会被线程池拒绝
+     */
+    private Semaphore globalPermits;
+
+    @PostConstruct
+    public void init() {
+        globalPermits = new Semaphore(threads + queueCapacity);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "upload-io-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交一个请求的所有任务，同时在途的任务不超过 per-request 限制
+     * 等不到全局名额的任务不执行，对应 Future 以 RejectedExecutionException 失败
+     *
+     * @return 与 tasks 顺序一致的 Future
+     */
+    public <T> List<Future<T>> submitAll(List<Callable<T>> tasks) throws InterruptedException {
+        Semaphore permits = new Semaphore(perRequest);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            permits.acquire();
+            if (!globalPermits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                permits.release();
+                futures.add(rejected("上传繁忙，请稍后重试"));
+                continue;
+            }
+            try {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return task.call();
+                    } finally {
+                        globalPermits.release();
+                        permits.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // 关闭中
+                globalPermits.release();
+                permits.release();
+                futures.add(rejected("服务正在关闭，请稍后重试"));
+            }
+        }
+        return futures;
+    }
+
+    private static <T> Future<T> rejected(String message) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new RejectedExecutionException(message));
+        return future;
+    }
+}
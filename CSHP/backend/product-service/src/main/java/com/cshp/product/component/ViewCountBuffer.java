@@ -0,0 +1,166 @@
+package com.cshp.product.component;
+
+import com.cshp.product.mapper.ProductMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 浏览量写缓冲
+ * 详情页浏览只在内存中累加，定时批量写回 product.view_count，停机时再刷一次
+ * 写回时原子地换下当前桶并等待在途的累加完成，换下的桶不再有写入，读出的计数即为全部待写回的浏览量
+ */
+@Slf4j
+@Component
+public class ViewCountBuffer {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Value("${product.view-count.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private volatile Bucket currentBucket = new Bucket();
+
+    /**
+     * 正在写回的桶，写回成功的商品随即移除，查询待写回浏览量时与当前桶一起计入
+     */
+    private volatile Bucket flushingBucket;
+
+    /**
+     * 记录一次浏览，不访问数据库
+     */
+    public void increment(Long productId) {
+        add(productId, 1);
+    }
+
+    /**
+     * 无锁累加；写入期间桶被换下时重试到新桶，换桶方会等待在途的写入完成
+     */
+    private void add(Long productId, long delta) {
+        for (;;) {
+            Bucket bucket = currentBucket;
+            bucket.writers.incrementAndGet();
+            try {
+                if (bucket == currentBucket) {
+                    bucket.counts.computeIfAbsent(productId, id -> new LongAdder()).add(delta);
+                    return;
+                }
+            } finally {
+                bucket.writers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 某个商品尚未写回数据库的浏览量
+     */
+    public long getPending(Long productId) {
+        Bucket current = currentBucket;
+        Bucket flushing = flushingBucket;
+        long pending = current.get(productId);
+        if (flushing != null && flushing != current) {
+            pending += flushing.get(productId);
+        }
+        return pending;
+    }
+
+    /**
+     * 所有尚未写回数据库的浏览量
+     */
+    public long getPendingTotal() {
+        Bucket current = currentBucket;
+        Bucket flushing = flushingBucket;
+        long total = current.total();
+        if (flushing != null && flushing != current) {
+            total += flushing.total();
+        }
+        return total;
+    }
+
+    public int getTrackedCount() {
+        return currentBucket.counts.size();
+    }
+
+    @Scheduled(fixedDelayString = "${product.view-count.flush-interval:5000}")
+    public synchronized void flush() {
+        Bucket closing = currentBucket;
+        flushingBucket = closing;
+        currentBucket = new Bucket();
+        while (closing.writers.get() > 0) {
+            Thread.yield();
+        }
+
+        try {
+            Map<Long, Long> batch = new HashMap<>();
+            int flushed = 0;
+            for (Map.Entry<Long, LongAdder> entry : closing.counts.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue().sum());
+                if (batch.size() >= flushBatchSize) {
+                    flushed += writeBack(closing, batch);
+                    batch = new HashMap<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                flushed += writeBack(closing, batch);
+            }
+            if (flushed > 0) {
+                log.debug("浏览量写回 {} 个商品", flushed);
+            }
+        } finally {
+            flushingBucket = null;
+        }
+    }
+
+    private int writeBack(Bucket closing, Map<Long, Long> batch) {
+        try {
+            productMapper.incrementViewCounts(batch);
+            productCache.addViewCounts(batch);
+            closing.counts.keySet().removeAll(batch.keySet());
+            return batch.size();
+        } catch (Exception e) {
+            log.error("浏览量写回失败，{} 条记录放回缓冲", batch.size(), e);
+            closing.counts.keySet().removeAll(batch.keySet());
+            for (Map.Entry<Long, Long> item : batch.entrySet()) {
+                add(item.getKey(), item.getValue());
+            }
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("停机前写回浏览量，待写回 {} 次", getPendingTotal());
+        flush();
+    }
+
+    private static class Bucket {
+        final ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+        final AtomicInteger writers = new AtomicInteger();
+
+        long get(Long productId) {
+            LongAdder adder = counts.get(productId);
+            return adder == null ? 0 : adder.sum();
+        }
+
+        long total() {
+            long total = 0;
+            for (LongAdder adder : counts.values()) {
+                total += adder.sum();
+            }
+            return total;
+        }
+    }
+}
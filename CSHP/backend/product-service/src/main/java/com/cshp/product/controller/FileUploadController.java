@@ -1,20 +1,28 @@
 package com.cshp.product.controller;
 
+import com.cshp.common.exception.BusinessException;
 import com.cshp.common.result.Result;
+import com.cshp.product.component.ImageVariantGenerator;
+import com.cshp.product.component.UploadCatalog;
+import com.cshp.product.component.UploadExecutor;
+import com.cshp.product.dto.ChunkedUploadDTO;
+import com.cshp.product.dto.StoredFileDTO;
+import com.cshp.product.service.ChunkedUploadService;
+import com.cshp.product.service.FileStorageService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 @Slf4j
 @RestController
@@ -30,6 +38,21 @@ public class FileUploadController {
     @Value("${file.upload.max-size:5242880}")
     private long maxFileSize;
 
+    @Autowired
+    private ImageVariantGenerator imageVariantGenerator;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private UploadExecutor uploadExecutor;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private UploadCatalog uploadCatalog;
+
     // 支持的图片格式 - 兼容 Java 8
     private static final Set<String> ALLOWED_EXTENSIONS;
 
@@ -49,7 +72,8 @@ public class FileUploadController {
      * 单文件上传 - 返回文件名而不是完整URL
      */
     @PostMapping("/upload")
-    public Result<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file) {
+    public Result<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file,
+                                                  @RequestHeader("X-Student-Id") String studentId) {
         try {
             log.info("开始上传文件: {}, 大小: {} bytes",
                     file.getOriginalFilename(), file.getSize());
@@ -75,35 +99,16 @@ public class FileUploadController {
                 return Result.error(400, "只支持图片文件（jpg, jpeg, png, gif, webp, bmp）");
             }
 
-            // 创建上传目录
-            String dateDir = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-            String fullUploadPath = uploadPath + File.separator + dateDir;
-            File uploadDir = new File(fullUploadPath);
-            if (!uploadDir.exists()) {
-                boolean created = uploadDir.mkdirs();
-                log.info("创建目录: {}, 结果: {}", fullUploadPath, created);
+            // 保存文件，按配置使用日期目录或内容寻址存储
+            StoredFileDTO stored;
+            try (InputStream in = file.getInputStream()) {
+                stored = fileStorageService.store(in, extension, studentId);
             }
-
-            // 生成唯一文件名
-            String fileName = UUID.randomUUID().toString() + "." + extension;
-            String filePath = fullUploadPath + File.separator + fileName;
-
-            // 保存文件 - 使用更好的方式
-            Path targetPath = Paths.get(filePath);
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-
-            // 构建存储的路径（相对路径）
-            String storedPath = dateDir + "/" + fileName;
+            String storedPath = stored.getStoredPath();
 
             log.info("文件上传成功: {}", storedPath);
 
-            // 返回结果 - 包含文件名和存储路径
-            Map<String, String> result = new HashMap<>();
-            result.put("fileName", fileName);
-            result.put("storedPath", storedPath); // 存储这个到数据库
-            result.put("fullUrl", urlPrefix + "/" + storedPath); // 完整访问URL
-
-            return Result.success("上传成功", result);
+            return Result.success("上传成功", buildUploadResult(stored));
 
         } catch (IOException e) {
             log.error("文件上传失败", e);
@@ -112,29 +117,61 @@ public class FileUploadController {
     }
 
     /**
-     * 多文件上传
+     * 多文件上传 - 在上传线程池中并行写盘，每个文件单独校验并返回结果
      */
     @PostMapping("/upload/batch")
-    public Result<Map<String, Object>> uploadFiles(@RequestParam("files") MultipartFile[] files) {
+    public Result<Map<String, Object>> uploadFiles(@RequestParam("files") MultipartFile[] files,
+                                                   @RequestHeader("X-Student-Id") String studentId) {
+        List<Callable<Result<Map<String, String>>>> tasks = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            tasks.add(() -> uploadFile(file, studentId));
+        }
+
+        List<Future<Result<Map<String, String>>>> futures;
+        try {
+            futures = uploadExecutor.submitAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.error(500, "文件上传被中断");
+        }
+
         List<Map<String, String>> successFiles = new ArrayList<>();
         List<String> errorFiles = new ArrayList<>();
-
-        for (MultipartFile file : files) {
+        List<Map<String, Object>> results = new ArrayList<>(files.length);
+        for (int i = 0; i < files.length; i++) {
+            String originalFilename = files[i].getOriginalFilename();
+            Map<String, Object> item = new HashMap<>();
+            item.put("index", i);
+            item.put("originalFilename", originalFilename);
             try {
-                Result<Map<String, String>> result = uploadFile(file);
+                Result<Map<String, String>> result = futures.get(i).get();
                 if (result.getCode() == 200 && result.getData() != null) {
                     successFiles.add(result.getData());
+                    item.put("success", true);
+                    item.put("data", result.getData());
                 } else {
-                    errorFiles.add(file.getOriginalFilename() + ": " + result.getMessage());
+                    errorFiles.add(originalFilename + ": " + result.getMessage());
+                    item.put("success", false);
+                    item.put("message", result.getMessage());
                 }
-            } catch (Exception e) {
-                errorFiles.add(file.getOriginalFilename() + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errorFiles.add(originalFilename + ": 上传被中断");
+                item.put("success", false);
+                item.put("message", "上传被中断");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                errorFiles.add(originalFilename + ": " + cause.getMessage());
+                item.put("success", false);
+                item.put("message", cause.getMessage());
             }
+            results.add(item);
         }
 
         Map<String, Object> result = new HashMap<>();
         result.put("success", successFiles);
         result.put("errors", errorFiles);
+        result.put("results", results); // 与上传顺序一致的逐文件结果
 
         if (successFiles.isEmpty()) {
             return Result.error(400, "所有文件上传失败");
@@ -149,26 +186,115 @@ public class FileUploadController {
         return Result.success(message, result);
     }
 
+    /**
+     * 分片上传 - 创建会话，返回 uploadId 和分片大小
+     */
+    @PostMapping("/chunked/init")
+    public Result<ChunkedUploadDTO> initChunkedUpload(@RequestParam("fileName") String fileName,
+                                                      @RequestParam("totalSize") long totalSize,
+                                                      @RequestHeader("X-Student-Id") String studentId) {
+        if (totalSize <= 0) {
+            return Result.error(400, "文件不能为空");
+        }
+        // 与单文件上传同一上限，尺寸变体生成按此大小解码图片
+        if (totalSize > maxFileSize) {
+            return Result.error(400, "文件大小不能超过 " + (maxFileSize / 1024 / 1024) + "MB");
+        }
+        String extension = getFileExtension(fileName);
+        if (!isImageFile(extension)) {
+            return Result.error(400, "只支持图片文件（jpg, jpeg, png, gif, webp, bmp）");
+        }
+        try {
+            return Result.success(chunkedUploadService.initiate(fileName, extension, totalSize, studentId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (IOException e) {
+            log.error("创建分片上传会话失败: {}", fileName, e);
+            return Result.error(500, "创建上传会话失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分片上传 - 上传一个分片，请求体为分片原始字节（application/octet-stream）
+     */
+    @PutMapping("/chunked/{uploadId}")
+    public Result<ChunkedUploadDTO> uploadChunk(@PathVariable String uploadId,
+                                                @RequestParam("offset") long offset,
+                                                @RequestHeader("X-Student-Id") String studentId,
+                                                HttpServletRequest request) {
+        try (InputStream in = request.getInputStream()) {
+            return Result.success(chunkedUploadService.uploadChunk(uploadId, offset, in, studentId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (IOException e) {
+            log.error("分片写入失败: {}, offset: {}", uploadId, offset, e);
+            return Result.error(500, "分片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分片上传 - 查询会话状态，断线重连后据此补传缺失分片
+     */
+    @GetMapping("/chunked/{uploadId}")
+    public Result<ChunkedUploadDTO> getChunkedUpload(@PathVariable String uploadId,
+                                                     @RequestHeader("X-Student-Id") String studentId) {
+        try {
+            return Result.success(chunkedUploadService.getStatus(uploadId, studentId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 分片上传 - 合并完成，返回值与单文件上传一致
+     */
+    @PostMapping("/chunked/{uploadId}/complete")
+    public Result<Map<String, String>> completeChunkedUpload(@PathVariable String uploadId,
+                                                             @RequestHeader("X-Student-Id") String studentId) {
+        try {
+            StoredFileDTO stored = chunkedUploadService.complete(uploadId, studentId);
+            return Result.success("上传成功", buildUploadResult(stored));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (IOException e) {
+            log.error("分片上传合并失败: {}", uploadId, e);
+            return Result.error(500, "文件上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分片上传 - 放弃上传并删除临时文件
+     */
+    @DeleteMapping("/chunked/{uploadId}")
+    public Result<String> abortChunkedUpload(@PathVariable String uploadId,
+                                             @RequestHeader("X-Student-Id") String studentId) {
+        try {
+            chunkedUploadService.abort(uploadId, studentId);
+            return Result.success("已取消上传");
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (IOException e) {
+            log.error("取消分片上传失败: {}", uploadId, e);
+            return Result.error(500, "取消上传失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 删除文件
      */
     @DeleteMapping("/delete")
-    public Result<String> deleteFile(@RequestParam("filePath") String filePath) {
+    public Result<String> deleteFile(@RequestParam("filePath") String filePath,
+                                     @RequestHeader("X-Student-Id") String studentId) {
         try {
-            // 直接从文件路径删除
-            String fullFilePath = uploadPath + File.separator + filePath;
-            File file = new File(fullFilePath);
-
-            if (file.exists() && file.isFile()) {
-                if (file.delete()) {
-                    log.info("文件删除成功: {}", fullFilePath);
-                    return Result.success("文件删除成功");
-                } else {
-                    return Result.error(500, "文件删除失败");
-                }
+            // 内容寻址存储的文件在引用数归零后才删除物理文件
+            if (fileStorageService.delete(filePath, studentId)) {
+                log.info("文件删除成功: {}", filePath);
+                return Result.success("文件删除成功");
             } else {
                 return Result.error(404, "文件不存在: " + filePath);
             }
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
         } catch (Exception e) {
             log.error("文件删除失败: {}", filePath, e);
             return Result.error(500, "文件删除失败: " + e.getMessage());
@@ -190,33 +316,30 @@ public class FileUploadController {
         config.put("uploadDirExists", uploadDir.exists());
         config.put("uploadDirWritable", uploadDir.canWrite());
 
-        // 统计文件数量
-        if (uploadDir.exists()) {
-            int fileCount = countFiles(uploadDir);
-            config.put("totalFiles", fileCount);
-        }
+        // 文件统计来自增量维护的上传目录统计，不再遍历磁盘
+        config.put("totalFiles", uploadCatalog.getFileCount());
+        config.put("totalBytes", uploadCatalog.getTotalBytes());
+        config.put("bytesByDay", uploadCatalog.getBytesByDay());
+        config.put("catalogRebuildMillis", uploadCatalog.getRebuildMillis());
 
         return Result.success("配置信息", config);
     }
 
     /**
-     * 递归统计文件数量
+     * 组装上传结果 - 包含文件名、存储路径和各尺寸访问URL
      */
-    private int countFiles(File dir) {
-        int count = 0;
-        if (dir.isDirectory()) {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isFile()) {
-                        count++;
-                    } else if (file.isDirectory()) {
-                        count += countFiles(file);
-                    }
-                }
-            }
+    private Map<String, String> buildUploadResult(StoredFileDTO stored) {
+        String storedPath = stored.getStoredPath();
+        String fullUrl = urlPrefix + "/" + storedPath;
+        Map<String, String> result = new HashMap<>();
+        result.put("fileName", stored.getFileName());
+        result.put("storedPath", storedPath); // 存储这个到数据库
+        result.put("fullUrl", fullUrl); // 完整访问URL
+        result.put("duplicate", String.valueOf(stored.getDuplicate())); // 是否复用了内容相同的已有文件
+        for (Map.Entry<String, String> variant : imageVariantGenerator.variantUrls(fullUrl).entrySet()) {
+            result.put(variant.getKey() + "Url", variant.getValue()); // 各尺寸访问URL，如 thumbUrl
         }
-        return count;
+        return result;
     }
 
     /**
@@ -1,22 +1,53 @@
 package com.cshp.product.controller;
 
+import com.cshp.common.result.CursorPage;
 import com.cshp.common.result.Result;
+import com.cshp.common.util.CursorUtil;
+import com.cshp.product.component.ProductCache;
+import com.cshp.product.component.ProductChangeStream;
+import com.cshp.product.component.ProductSearchIndex;
+import com.cshp.product.component.ViewCountBuffer;
+import com.cshp.product.dto.CategorySummaryDTO;
+import com.cshp.product.dto.ProductBatchDTO;
+import com.cshp.product.dto.ProductBulkDTO;
+import com.cshp.product.dto.ProductBulkResultDTO;
+import com.cshp.product.dto.ProductCardDTO;
+import com.cshp.product.dto.ProductChangeFeedDTO;
 import com.cshp.product.dto.ProductCreateDTO;
 import com.cshp.product.dto.ProductDTO;
+import com.cshp.product.dto.ProductFilterDTO;
+import com.cshp.product.dto.TrendingProductDTO;
 import com.cshp.product.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.validation.Valid;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/product")
 public class ProductController {
 
+    private static final long MAX_CHANGE_WAIT_MILLIS = 30_000L;
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ViewCountBuffer viewCountBuffer;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductChangeStream productChangeStream;
+
     @PostMapping
     public Result<ProductDTO> createProduct(@Valid @RequestBody ProductCreateDTO dto,
                                             @RequestHeader("X-Student-Id") String sellerId) {
@@ -32,6 +63,12 @@ public class ProductController {
         return Result.success(product);
     }
 
+    @GetMapping("/internal/batch")
+    public Result<ProductBatchDTO> getProductsInternal(@RequestParam List<Long> ids) {
+        ProductBatchDTO products = productService.getProductDetails(ids);
+        return Result.success(products);
+    }
+
     @GetMapping("/internal/{id}")
     public Result<ProductDTO> getProductInternal(@PathVariable Long id) {
         ProductDTO product = productService.getProductDetail(id);
@@ -39,15 +76,17 @@ public class ProductController {
     }
 
     @GetMapping("/list")
-    public Result<List<ProductDTO>> getAllProducts() {
-        List<ProductDTO> products = productService.getAllProducts();
-        System.out.println( products);
+    public Result<CursorPage<ProductCardDTO>> getAllProducts(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size) {
+        CursorPage<ProductCardDTO> products = productService.getAllProducts(cursor, size);
         return Result.success(products);
     }
 
     @GetMapping("/my-sell")
-    public Result<List<ProductDTO>> getMySellProducts(@RequestHeader("X-Student-Id") String sellerId) {
-        List<ProductDTO> products = productService.getProductsBySellerId(sellerId);
+    public Result<CursorPage<ProductDTO>> getMySellProducts(@RequestHeader("X-Student-Id") String sellerId,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> products = productService.getProductsBySellerId(sellerId, cursor, size);
         return Result.success(products);
     }
 
@@ -82,6 +121,33 @@ public class ProductController {
         return Result.success();
     }
 
+    /**
+     * 批量修改状态，请求体 {ids, value}
+     */
+    @PutMapping("/bulk/status")
+    public Result<ProductBulkResultDTO> bulkUpdateStatus(@Valid @RequestBody ProductBulkDTO dto,
+                                                         @RequestHeader("X-Student-Id") String sellerId) {
+        return Result.success(productService.bulkUpdateStatus(dto.getIds(), dto.getValue(), sellerId));
+    }
+
+    /**
+     * 批量修改发货状态，请求体 {ids, value}
+     */
+    @PutMapping("/bulk/shipped")
+    public Result<ProductBulkResultDTO> bulkUpdateShipped(@Valid @RequestBody ProductBulkDTO dto,
+                                                          @RequestHeader("X-Student-Id") String sellerId) {
+        return Result.success(productService.bulkUpdateShipped(dto.getIds(), dto.getValue(), sellerId));
+    }
+
+    /**
+     * 批量删除，请求体 {ids}
+     */
+    @PostMapping("/bulk/delete")
+    public Result<ProductBulkResultDTO> bulkDelete(@Valid @RequestBody ProductBulkDTO dto,
+                                                   @RequestHeader("X-Student-Id") String sellerId) {
+        return Result.success(productService.bulkDelete(dto.getIds(), sellerId));
+    }
+
     @PutMapping("/internal/{id}/status")
     public Result<Void> updateStatusInternal(@PathVariable Long id,
                                              @RequestParam Integer status) {
@@ -89,6 +155,17 @@ public class ProductController {
         return Result.success();
     }
 
+    /**
+     * 条件更新商品状态，当前状态不是 expect 时返回 409，如 expect=0&status=1 原子地锁定在售商品
+     */
+    @PutMapping("/internal/{id}/status/cas")
+    public Result<Void> compareAndSetStatus(@PathVariable Long id,
+                                            @RequestParam Integer expect,
+                                            @RequestParam Integer status) {
+        productService.compareAndSetStatus(id, expect, status);
+        return Result.success();
+    }
+
     @PutMapping("/internal/{id}/shipped")
     public Result<Void> updateShippedInternal(@PathVariable Long id,
                                               @RequestParam Integer shipped) {
@@ -97,15 +174,96 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public Result<List<ProductDTO>> searchProducts(@RequestParam String keyword) {
-        List<ProductDTO> products = productService.searchProducts(keyword);
+    public Result<CursorPage<ProductCardDTO>> searchProducts(@RequestParam String keyword,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size) {
+        CursorPage<ProductCardDTO> products = productService.searchProducts(keyword, cursor, size);
         return Result.success(products);
     }
 
+    /**
+     * 组合筛选：category、minPrice、maxPrice、keyword、sort、excludeMine 均为可选，只返回在售商品
+     */
+    @GetMapping("/filter")
+    public Result<CursorPage<ProductCardDTO>> filterProducts(ProductFilterDTO filter,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestHeader(value = "X-Student-Id", required = false) String studentId) {
+        return Result.success(productService.filterProducts(filter, cursor, size, studentId));
+    }
+
+    /**
+     * 各分类在售数量、最新上架时间和价格区间，来自内存计数
+     */
+    @GetMapping("/categories")
+    public Result<List<CategorySummaryDTO>> getCategorySummary() {
+        return Result.success(productService.getCategorySummary());
+    }
+
+    /**
+     * 热门商品，window 为 hour（默认）或 day，按时间窗口内浏览量排序
+     */
+    @GetMapping("/trending")
+    public Result<List<TrendingProductDTO>> getTrendingProducts(@RequestParam(required = false) String window,
+                                                                @RequestParam(required = false) Integer limit) {
+        return Result.success(productService.getTrendingProducts(window, limit));
+    }
+
     @GetMapping("/category/{category}")
-    public Result<List<ProductDTO>> getProductsByCategory(@PathVariable String category) {
-        List<ProductDTO> products = productService.getProductsByCategory(category);
+    public Result<CursorPage<ProductCardDTO>> getProductsByCategory(@PathVariable String category,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer size) {
+        CursorPage<ProductCardDTO> products = productService.getProductsByCategory(category, cursor, size);
         return Result.success(products);
     }
-}
 
+    /**
+     * 商品变更流：返回偏移量 after 之后的变更，wait 大于 0 时没有新变更会等待最多 wait 毫秒（长轮询）
+     */
+    @GetMapping("/internal/changes")
+    public DeferredResult<Result<ProductChangeFeedDTO>> getChanges(@RequestParam(defaultValue = "0") long after,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(defaultValue = "0") long wait) {
+        int size = CursorUtil.normalizeSize(limit);
+        long waitMillis = Math.min(Math.max(wait, 0), MAX_CHANGE_WAIT_MILLIS);
+        ProductChangeFeedDTO feed = productChangeStream.read(after, size);
+        if (!feed.getChanges().isEmpty() || waitMillis == 0) {
+            DeferredResult<Result<ProductChangeFeedDTO>> result = new DeferredResult<>();
+            result.setResult(Result.success(feed));
+            return result;
+        }
+        DeferredResult<Result<ProductChangeFeedDTO>> result = new DeferredResult<>(waitMillis,
+                () -> Result.success(productChangeStream.read(after, size)));
+        Runnable cancel = productChangeStream.onAvailable(after,
+                () -> result.setResult(Result.success(productChangeStream.read(after, size))));
+        result.onCompletion(cancel);
+        return result;
+    }
+
+    /**
+     * 浏览量写缓冲状态（监控用）
+     */
+    @GetMapping("/internal/stats/view-count")
+    public Result<Map<String, Object>> getViewCountStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pendingIncrements", viewCountBuffer.getPendingTotal());
+        stats.put("trackedProducts", viewCountBuffer.getTrackedCount());
+        return Result.success(stats);
+    }
+
+    /**
+     * 商品详情缓存命中统计（监控用）
+     */
+    @GetMapping("/internal/stats/cache")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success(productCache.getStats());
+    }
+
+    /**
+     * 搜索索引状态（监控用）
+     */
+    @GetMapping("/internal/stats/search-index")
+    public Result<Map<String, Object>> getSearchIndexStats() {
+        return Result.success(productSearchIndex.getStats());
+    }
+}
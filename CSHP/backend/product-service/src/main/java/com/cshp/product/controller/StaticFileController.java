@@ -0,0 +1,206 @@
+package com.cshp.product.controller;
+
+import com.cshp.product.component.ImageVariantGenerator;
+import com.cshp.product.service.impl.FileStorageServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * 上传图片的静态访问 /uploads/**
+ * 上传后的文件不会再修改，因此返回强 ETag 和长期缓存头，支持 304 条件请求和 Range 请求，
+ * 运行在 Tomcat 上时通过 sendfile 零拷贝发送文件内容
+ */
+@Slf4j
+@Controller
+public class StaticFileController {
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.upload.url-prefix:/uploads}")
+    private String urlPrefix;
+
+    @Value("${file.upload.cache.max-age:31536000}")
+    private long maxAge;
+
+    @Value("${file.upload.cache.fallback-max-age:60}")
+    private long fallbackMaxAge;
+
+    @Autowired
+    private ImageVariantGenerator imageVariantGenerator;
+
+    @GetMapping("${file.upload.url-prefix:/uploads}/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        String relativePath = path.substring(Math.min(urlPrefix.length() + 1, path.length()));
+
+        Path file = resolve(relativePath);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // 请求了尺寸变体时优先返回变体；变体还未生成则回退到原图，且只短期缓存，避免把原图长期缓存在变体 URL 上
+        boolean fallback = false;
+        ImageVariantGenerator.Size size = ImageVariantGenerator.Size.of(request.getParameter("size"));
+        if (size != null) {
+            String variantPath = imageVariantGenerator.variantPath(relativePath, size);
+            Path variant = variantPath == null ? null : resolve(variantPath);
+            if (variant != null) {
+                file = variant;
+            } else {
+                fallback = true;
+            }
+        }
+
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = buildETag(relativePath, file, length, lastModified);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, fallback
+                ? "public, max-age=" + fallbackMaxAge
+                : "public, max-age=" + maxAge + ", immutable");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(mediaType.toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long count = length;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = null;
+            }
+            // 只处理单个区间，多区间请求按 RFC 7233 允许直接返回完整内容
+            if (ranges != null && ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(length);
+                    count = range.getRangeEnd(length) - start + 1;
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + (start + count - 1) + "/" + length);
+            }
+        }
+
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        transfer(request, response, file, start, count);
+    }
+
+    /**
+     * 发送文件内容：Tomcat 支持 sendfile 时交给连接器零拷贝发送，否则用 FileChannel.transferTo 写出
+     */
+    private void transfer(HttpServletRequest request, HttpServletResponse response,
+                          Path file, long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * If-Range 与当前 ETag 或修改时间一致时才按区间返回，否则返回完整内容
+     */
+    private boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long ifRangeTime = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeTime != -1 && lastModified / 1000 <= ifRangeTime / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 内容寻址存储的文件名就是内容哈希，直接作为 ETag；其余文件用大小和修改时间生成
+     */
+    private String buildETag(String relativePath, Path file, long length, long lastModified) {
+        String fileName = file.getFileName().toString();
+        if (relativePath.startsWith(FileStorageServiceImpl.CONTENT_PREFIX)) {
+            int dot = fileName.lastIndexOf('.');
+            return "\"" + (dot > 0 ? fileName.substring(0, dot) : fileName) + "\"";
+        }
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * 解析为上传目录下的普通文件，拒绝目录穿越和未完成的临时文件
+     */
+    private Path resolve(String relativePath) {
+        if (relativePath == null || relativePath.isEmpty()
+                || relativePath.startsWith("tmp/") || relativePath.startsWith("chunked/")) {
+            return null;
+        }
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,18 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 分类汇总：在售商品数、最新上架时间、价格区间
+ */
+@Data
+public class CategorySummaryDTO {
+    private String category;
+    private Integer count;
+    private LocalDateTime newestTime;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
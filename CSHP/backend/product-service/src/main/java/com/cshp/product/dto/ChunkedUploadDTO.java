@@ -0,0 +1,21 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分片上传会话状态
+ * 客户端断线重连后根据 missingChunks 续传，offset = 分片序号 * chunkSize
+ */
+@Data
+public class ChunkedUploadDTO {
+    private String uploadId;
+    private String fileName;
+    private Long totalSize;
+    private Integer chunkSize;
+    private Integer totalChunks;
+    private Integer receivedChunks;
+    private List<Integer> missingChunks;
+    private Long expireAt; // 会话空闲过期时间（毫秒时间戳）
+}
@@ -0,0 +1,15 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量查询商品结果
+ * products 按请求顺序排列，不存在的商品ID放在 missingIds 中
+ */
+@Data
+public class ProductBatchDTO {
+    private List<ProductDTO> products;
+    private List<Long> missingIds;
+}
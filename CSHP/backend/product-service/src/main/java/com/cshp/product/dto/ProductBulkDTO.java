@@ -0,0 +1,17 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * 批量操作请求，value 为要设置的状态值（批量删除时不需要）
+ */
+@Data
+public class ProductBulkDTO {
+    @NotEmpty(message = "商品ID不能为空")
+    private List<Long> ids;
+
+    private Integer value;
+}
@@ -0,0 +1,22 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量操作结果，results 与请求中的ID顺序一致（已去重）
+ */
+@Data
+public class ProductBulkResultDTO {
+    private Integer successCount;
+    private List<Item> results;
+
+    @Data
+    public static class Item {
+        private Long id;
+        private Boolean success;
+        private Integer code; // 200 成功，403 无权操作，404 商品不存在，409 当前状态不允许此操作
+        private String message;
+    }
+}
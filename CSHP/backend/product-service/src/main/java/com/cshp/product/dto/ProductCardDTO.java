@@ -0,0 +1,23 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 列表卡片用的商品投影，不含描述，图片只保留封面
+ * 详情仍使用 ProductDTO
+ */
+@Data
+public class ProductCardDTO {
+    private Long id;
+    private String title;
+    private BigDecimal price;
+    private String category;
+    private String coverImage; // images 中的第一张
+    private String sellerId;
+    private Integer status;
+    private Integer viewCount;
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,16 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 商品变更流中的一条记录，offset 单调递增
+ */
+@Data
+public class ProductChangeDTO {
+    private Long offset;
+    private Long productId;
+    private String type; // CREATED / UPDATED / DELETED / STATUS_CHANGED / SHIPPED_CHANGED
+    private LocalDateTime time;
+}
@@ -0,0 +1,14 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 变更流分页，下次请求以 nextOffset 作为 after 继续读取
+ */
+@Data
+public class ProductChangeFeedDTO {
+    private List<ProductChangeDTO> changes;
+    private Long nextOffset;
+}
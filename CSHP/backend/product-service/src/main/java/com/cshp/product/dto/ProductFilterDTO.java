@@ -0,0 +1,20 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品组合筛选条件，均为可选
+ * sort：newest（默认）、price_asc、price_desc、popular
+ */
+@Data
+public class ProductFilterDTO {
+    private String category;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer status; // 只支持 0 在售，默认 0
+    private String keyword;
+    private String sort;
+    private Boolean excludeMine; // 排除当前用户自己发布的商品
+}
@@ -0,0 +1,17 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+/**
+ * 文件存储结果
+ */
+@Data
+public class StoredFileDTO {
+    private String fileName;
+    private String storedPath;
+    private Long size;
+    /**
+     * 内容与已有文件相同，复用了已有文件
+     */
+    private Boolean duplicate;
+}
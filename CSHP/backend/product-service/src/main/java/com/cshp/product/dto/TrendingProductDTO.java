@@ -0,0 +1,18 @@
+package com.cshp.product.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 热门商品，views 为时间窗口内的浏览量
+ */
+@Data
+public class TrendingProductDTO {
+    private Long id;
+    private String title;
+    private BigDecimal price;
+    private String category;
+    private String coverImage;
+    private Long views;
+}
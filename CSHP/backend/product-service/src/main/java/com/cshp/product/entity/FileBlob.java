@@ -0,0 +1,21 @@
+package com.cshp.product.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("file_blob")
+public class FileBlob {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private String sha256;
+    private String storedPath;
+    private Long size;
+    private Integer refCount; // 引用次数，归零时删除物理文件
+    private LocalDateTime createTime;
+    private LocalDateTime updateTime;
+}
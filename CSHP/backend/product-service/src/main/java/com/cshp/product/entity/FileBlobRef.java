@@ -0,0 +1,18 @@
+package com.cshp.product.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("file_blob_ref")
+public class FileBlobRef {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private Long blobId;
+    private String ownerId; // 上传者学号，每次上传一条，只能删除自己的引用
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,18 @@
+package com.cshp.product.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("product_outbox")
+public class ProductOutbox {
+    @TableId(type = IdType.AUTO)
+    private Long id; // 变更流偏移量
+    private Long productId;
+    private String eventType; // ProductChangedEvent.Type
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,27 @@
+package com.cshp.product.event;
+
+import lombok.Getter;
+
+/**
+ * 商品变更事件
+ * 由 ProductServiceImpl 在每次写操作后发布，监听方在事务提交后处理
+ */
+@Getter
+public class ProductChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STATUS_CHANGED,
+        SHIPPED_CHANGED
+    }
+
+    private final Long productId;
+    private final Type type;
+
+    public ProductChangedEvent(Long productId, Type type) {
+        this.productId = productId;
+        this.type = type;
+    }
+}
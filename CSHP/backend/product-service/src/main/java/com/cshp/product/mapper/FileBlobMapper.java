@@ -0,0 +1,25 @@
+package com.cshp.product.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cshp.product.entity.FileBlob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface FileBlobMapper extends BaseMapper<FileBlob> {
+    FileBlob selectBySha256(@Param("sha256") String sha256);
+
+    FileBlob selectByStoredPath(@Param("storedPath") String storedPath);
+
+    int incrementRef(@Param("id") Long id);
+
+    /**
+     * 引用数大于 0 时减一
+     */
+    int decrementRef(@Param("id") Long id);
+
+    /**
+     * 仅在引用数为 0 时删除
+     */
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -0,0 +1,14 @@
+package com.cshp.product.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cshp.product.entity.FileBlobRef;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface FileBlobRefMapper extends BaseMapper<FileBlobRef> {
+    /**
+     * 删除 ownerId 持有的一条引用，返回 0 表示调用方没有引用此文件
+     */
+    int deleteOneOwned(@Param("blobId") Long blobId, @Param("ownerId") String ownerId);
+}
@@ -1,18 +1,115 @@
 package com.cshp.product.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cshp.product.dto.ProductCardDTO;
+import com.cshp.product.dto.ProductFilterDTO;
 import com.cshp.product.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * 列表查询均按 (create_time DESC, id DESC) 做游标分页
+ * cursorTime / cursorId 为空时查询第一页，limit 由调用方传入页大小 + 1
+ * 面向首页、分类和搜索的列表返回 ProductCardDTO，只读取卡片展示需要的列
+ */
 @Mapper
 public interface ProductMapper extends BaseMapper<Product> {
-    List<Product> selectBySellerId(@Param("sellerId") String sellerId);
+    List<Product> selectActivePage(@Param("cursorTime") LocalDateTime cursorTime,
+                                   @Param("cursorId") Long cursorId,
+                                   @Param("limit") int limit);
+
+    List<ProductCardDTO> selectActiveCards(@Param("cursorTime") LocalDateTime cursorTime,
+                                           @Param("cursorId") Long cursorId,
+                                           @Param("limit") int limit);
+
+    List<Product> selectBySellerId(@Param("sellerId") String sellerId,
+                                   @Param("cursorTime") LocalDateTime cursorTime,
+                                   @Param("cursorId") Long cursorId,
+                                   @Param("limit") int limit);
     
-    List<Product> selectByKeyword(@Param("keyword") String keyword);
+    List<ProductCardDTO> selectByKeyword(@Param("keyword") String keyword,
+                                         @Param("cursorTime") LocalDateTime cursorTime,
+                                         @Param("cursorId") Long cursorId,
+                                         @Param("limit") int limit);
     
-    List<Product> selectByCategory(@Param("category") String category);
-}
+    List<ProductCardDTO> selectByCategory(@Param("category") String category,
+                                          @Param("cursorTime") LocalDateTime cursorTime,
+                                          @Param("cursorId") Long cursorId,
+                                          @Param("limit") int limit);
+
+    /**
+     * 按ID批量查询卡片，不保证顺序
+     */
+    List<ProductCardDTO> selectCardsByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 批量累加浏览量，key 为商品ID，value 为增量
+     */
+    int incrementViewCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 条件更新上架状态，expectedStatus / excludedStatus / sellerId 为空时不作为条件
+     * 返回 0 表示商品不存在、不属于该卖家或当前状态不符，由调用方区分
+     */
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expectedStatus") Integer expectedStatus,
+                            @Param("excludedStatus") Integer excludedStatus,
+                            @Param("status") Integer status,
+                            @Param("sellerId") String sellerId);
+
+    /**
+     * 条件更新发货状态，规则同 compareAndSetStatus
+     */
+    int compareAndSetShipped(@Param("id") Long id,
+                             @Param("expectedShipped") Integer expectedShipped,
+                             @Param("shipped") Integer shipped,
+                             @Param("sellerId") String sellerId);
+
+    /**
+     * 只查询判断条件更新失败原因所需的列
+     */
+    Product selectStateById(@Param("id") Long id);
+
+    /**
+     * 分类汇总对账用，只查询在售商品的统计字段
+     */
+    List<Product> selectActiveFacetRows();
 
+    Product selectFacetById(@Param("id") Long id);
+
+    /**
+     * 批量操作的归属校验，锁定属于该卖家的行直到事务结束
+     */
+    List<Long> selectOwnedIdsForUpdate(@Param("sellerId") String sellerId, @Param("ids") List<Long> ids);
+
+    List<Long> selectExistingIds(@Param("ids") List<Long> ids);
+
+    List<Long> selectIdsByStatus(@Param("ids") List<Long> ids, @Param("status") Integer status);
+
+    int updateStatusBySeller(@Param("sellerId") String sellerId,
+                             @Param("ids") List<Long> ids,
+                             @Param("status") Integer status);
+
+    int updateShippedBySeller(@Param("sellerId") String sellerId,
+                              @Param("ids") List<Long> ids,
+                              @Param("shipped") Integer shipped);
+
+    int deleteBySeller(@Param("sellerId") String sellerId, @Param("ids") List<Long> ids);
+
+    /**
+     * 组合筛选，按 filter.sort 选择排序键，游标为上一页最后一条的 (排序值, id)
+     * 价格排序使用 cursorPrice，热度排序使用 cursorViews，默认按时间使用 cursorTime
+     */
+    List<ProductCardDTO> selectFiltered(@Param("f") ProductFilterDTO filter,
+                                        @Param("excludeSellerId") String excludeSellerId,
+                                        @Param("cursorTime") LocalDateTime cursorTime,
+                                        @Param("cursorPrice") BigDecimal cursorPrice,
+                                        @Param("cursorId") Long cursorId,
+                                        @Param("offset") int offset,
+                                        @Param("limit") int limit);
+}
@@ -0,0 +1,26 @@
+package com.cshp.product.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cshp.product.entity.ProductOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface ProductOutboxMapper extends BaseMapper<ProductOutbox> {
+
+    int insertBatch(@Param("rows") List<ProductOutbox> rows);
+
+    /**
+     * 按偏移量顺序读取 (after, upTo] 区间内的变更，upTo 为空时不设上限
+     */
+    List<ProductOutbox> selectRange(@Param("after") long after,
+                                    @Param("upTo") Long upTo,
+                                    @Param("limit") int limit);
+
+    Long selectMaxId();
+
+    int deleteBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,28 @@
+package com.cshp.product.service;
+
+import com.cshp.product.dto.ChunkedUploadDTO;
+import com.cshp.product.dto.StoredFileDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ChunkedUploadService {
+    /**
+     * 创建上传会话并预分配临时文件
+     */
+    ChunkedUploadDTO initiate(String fileName, String extension, long totalSize, String ownerId) throws IOException;
+
+    /**
+     * 写入一个分片，offset 必须按分片大小对齐，同一分片可重复上传
+     */
+    ChunkedUploadDTO uploadChunk(String uploadId, long offset, InputStream in, String ownerId) throws IOException;
+
+    ChunkedUploadDTO getStatus(String uploadId, String ownerId);
+
+    /**
+     * 所有分片到齐后交给 FileStorageService 保存，并结束会话
+     */
+    StoredFileDTO complete(String uploadId, String ownerId) throws IOException;
+
+    void abort(String uploadId, String ownerId) throws IOException;
+}
@@ -0,0 +1,25 @@
+package com.cshp.product.service;
+
+import com.cshp.product.dto.StoredFileDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface FileStorageService {
+    /**
+     * 保存上传文件，按配置使用日期目录或内容寻址存储
+     *
+     * @param in        文件内容，由调用方关闭
+     * @param extension 小写扩展名，不含点
+     * @param ownerId   上传者，内容寻址存储按上传者记录引用
+     */
+    StoredFileDTO store(InputStream in, String extension, String ownerId) throws IOException;
+
+    /**
+     * 删除文件，内容寻址存储的文件只减少 ownerId 自己的一次引用，引用数归零后才删除物理文件
+     *
+     * @return 文件不存在时返回 false
+     * @throws com.cshp.common.exception.BusinessException 调用方没有引用此文件时抛出 403
+     */
+    boolean delete(String storedPath, String ownerId) throws IOException;
+}
@@ -1,7 +1,14 @@
 package com.cshp.product.service;
 
+import com.cshp.common.result.CursorPage;
+import com.cshp.product.dto.CategorySummaryDTO;
+import com.cshp.product.dto.ProductBatchDTO;
+import com.cshp.product.dto.ProductBulkResultDTO;
+import com.cshp.product.dto.ProductCardDTO;
 import com.cshp.product.dto.ProductCreateDTO;
 import com.cshp.product.dto.ProductDTO;
+import com.cshp.product.dto.ProductFilterDTO;
+import com.cshp.product.dto.TrendingProductDTO;
 
 import java.util.List;
 
@@ -10,9 +17,9 @@ public interface ProductService {
     
     ProductDTO getProductById(Long id);
     
-    List<ProductDTO> getAllProducts();
+    CursorPage<ProductCardDTO> getAllProducts(String cursor, Integer size);
     
-    List<ProductDTO> getProductsBySellerId(String sellerId);
+    CursorPage<ProductDTO> getProductsBySellerId(String sellerId, String cursor, Integer size);
     
     ProductDTO updateProduct(Long id, ProductCreateDTO dto, String sellerId);
     
@@ -23,10 +30,37 @@ public interface ProductService {
     void updateProductShipped(Long id, Integer shipped, String sellerId);
     void updateProductStatusInternal(Long id, Integer status);
     void updateProductShippedInternal(Long id, Integer shipped);
+
+    /**
+     * 卖家批量修改状态、发货状态或删除，整批在一个事务内完成，返回逐个商品的结果
+     */
+    ProductBulkResultDTO bulkUpdateStatus(List<Long> ids, Integer status, String sellerId);
+
+    ProductBulkResultDTO bulkUpdateShipped(List<Long> ids, Integer shipped, String sellerId);
+
+    ProductBulkResultDTO bulkDelete(List<Long> ids, String sellerId);
+
+    /**
+     * 仅当商品当前状态为 expectedStatus 时更新为 status，用于订单服务原子地锁定商品
+     * 商品不存在抛 404，状态不符抛 409
+     */
+    void compareAndSetStatus(Long id, Integer expectedStatus, Integer status);
     
-    List<ProductDTO> searchProducts(String keyword);
+    CursorPage<ProductCardDTO> searchProducts(String keyword, String cursor, Integer size);
     
-    List<ProductDTO> getProductsByCategory(String category);
+    CursorPage<ProductCardDTO> getProductsByCategory(String category, String cursor, Integer size);
+
+    List<CategorySummaryDTO> getCategorySummary();
+
+    /**
+     * 组合筛选，currentUserId 仅在 excludeMine 时使用
+     */
+    CursorPage<ProductCardDTO> filterProducts(ProductFilterDTO filter, String cursor, Integer size, String currentUserId);
+
+    /**
+     * 时间窗口内浏览最多的在售商品，window 为 hour 或 day
+     */
+    List<TrendingProductDTO> getTrendingProducts(String window, Integer limit);
     
     void incrementViewCount(Long id);
 
@@ -34,5 +68,9 @@ public interface ProductService {
      * 内部服务调用，不增加浏览量
      */
     ProductDTO getProductDetail(Long id);
-}
 
+    /**
+     * 内部服务批量查询，一次查询数据库，不存在的ID单独返回
+     */
+    ProductBatchDTO getProductDetails(List<Long> ids);
+}
@@ -0,0 +1,292 @@
+package com.cshp.product.service.impl;
+
+import com.cshp.common.exception.BusinessException;
+import com.cshp.product.dto.ChunkedUploadDTO;
+import com.cshp.product.dto.StoredFileDTO;
+import com.cshp.product.service.ChunkedUploadService;
+import com.cshp.product.service.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 可续传的分片上传
+ * 会话创建时按总大小预分配临时文件，分片直接按偏移量写入文件，不经过 multipart 缓冲；
+ * 已收到的分片记录在内存中，客户端断线后查询状态即可续传，空闲超时的会话定期清理
+ */
+@Slf4j
+@Service
+public class ChunkedUploadServiceImpl implements ChunkedUploadService {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.upload.chunked.chunk-size:524288}")
+    private int chunkSize;
+
+    @Value("${file.upload.chunked.session-ttl:86400000}")
+    private long sessionTtl;
+
+    @Value("${file.upload.chunked.max-sessions:1000}")
+    private int maxSessions;
+
+    @Value("${file.upload.chunked.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public ChunkedUploadDTO initiate(String fileName, String extension, long totalSize, String ownerId) throws IOException {
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path dir = Paths.get(uploadPath, "chunked");
+        Path partFile = dir.resolve(uploadId + ".part");
+        int totalChunks = (int) ((totalSize + chunkSize - 1) / chunkSize);
+        UploadSession session = new UploadSession(uploadId, ownerId, fileName, extension,
+                totalSize, chunkSize, totalChunks, partFile);
+
+        // 先占住会话名额再预分配文件，检查和登记在同一把锁内完成
+        synchronized (sessions) {
+            if (sessions.size() >= maxSessions) {
+                throw new BusinessException(503, "上传会话过多，请稍后再试");
+            }
+            if (countSessions(ownerId) >= maxSessionsPerUser) {
+                throw new BusinessException(429, "未完成的上传过多，请先完成或取消已有上传");
+            }
+            sessions.put(uploadId, session);
+        }
+        try {
+            Files.createDirectories(dir);
+            try (RandomAccessFile raf = new RandomAccessFile(partFile.toFile(), "rw")) {
+                raf.setLength(totalSize);
+            }
+        } catch (IOException e) {
+            sessions.remove(uploadId);
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+        log.info("创建分片上传会话: {}, 文件: {}, 大小: {} bytes, 分片数: {}", uploadId, fileName, totalSize, totalChunks);
+        return toDTO(session);
+    }
+
+    @Override
+    public ChunkedUploadDTO uploadChunk(String uploadId, long offset, InputStream in, String ownerId) throws IOException {
+        UploadSession session = getSession(uploadId, ownerId);
+        if (offset < 0 || offset >= session.totalSize || offset % session.chunkSize != 0) {
+            throw new BusinessException(400, "分片偏移量不正确: " + offset);
+        }
+        int index = (int) (offset / session.chunkSize);
+        long expected = Math.min(session.chunkSize, session.totalSize - offset);
+
+        // 合并开始后不再接受分片，写入中的分片登记在会话上，合并前须全部结束
+        synchronized (session) {
+            if (session.completing) {
+                throw new BusinessException(409, "上传正在合并中");
+            }
+            session.writers++;
+        }
+        try {
+            // 分片按位置写入预分配文件，不同分片可以并发写
+            long written = 0;
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            try (FileChannel channel = FileChannel.open(session.partFile, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (written + read > expected) {
+                        throw new BusinessException(400, "分片大小超出预期: " + expected + " bytes");
+                    }
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                    long position = offset + written;
+                    while (byteBuffer.hasRemaining()) {
+                        position += channel.write(byteBuffer, position);
+                    }
+                    written += read;
+                }
+            }
+            if (written != expected) {
+                throw new BusinessException(400, "分片不完整，期望 " + expected + " bytes，实际 " + written + " bytes");
+            }
+
+            synchronized (session) {
+                session.received.set(index);
+            }
+        } finally {
+            synchronized (session) {
+                session.writers--;
+            }
+        }
+        session.touch();
+        return toDTO(session);
+    }
+
+    @Override
+    public ChunkedUploadDTO getStatus(String uploadId, String ownerId) {
+        UploadSession session = getSession(uploadId, ownerId);
+        session.touch();
+        return toDTO(session);
+    }
+
+    @Override
+    public StoredFileDTO complete(String uploadId, String ownerId) throws IOException {
+        UploadSession session = getSession(uploadId, ownerId);
+        synchronized (session) {
+            if (session.received.cardinality() < session.totalChunks) {
+                throw new BusinessException(400, "还有 " + (session.totalChunks - session.received.cardinality()) + " 个分片未上传");
+            }
+            if (session.completing) {
+                throw new BusinessException(409, "上传正在合并中");
+            }
+            if (session.writers > 0) {
+                throw new BusinessException(409, "还有分片正在写入，请稍后再试");
+            }
+            session.completing = true;
+        }
+        session.touch();
+        // 保存成功后才结束会话，保存失败时会话和已收到的分片保留，可以再次 complete
+        StoredFileDTO stored;
+        try (InputStream in = Files.newInputStream(session.partFile)) {
+            stored = fileStorageService.store(in, session.extension, session.ownerId);
+        } catch (IOException | RuntimeException e) {
+            synchronized (session) {
+                session.completing = false;
+            }
+            session.touch();
+            throw e;
+        }
+        sessions.remove(uploadId);
+        Files.deleteIfExists(session.partFile);
+        log.info("分片上传完成: {} -> {}", uploadId, stored.getStoredPath());
+        return stored;
+    }
+
+    @Override
+    public void abort(String uploadId, String ownerId) throws IOException {
+        UploadSession session = getSession(uploadId, ownerId);
+        synchronized (session) {
+            if (session.completing) {
+                throw new BusinessException(409, "上传正在合并中");
+            }
+        }
+        if (sessions.remove(uploadId) != null) {
+            Files.deleteIfExists(session.partFile);
+        }
+    }
+
+    /**
+     * 清理空闲超时的会话和临时文件
+     */
+    @Scheduled(fixedDelayString = "${file.upload.chunked.cleanup-interval:600000}")
+    public void expireSessions() {
+        long now = System.currentTimeMillis();
+        Iterator<UploadSession> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            UploadSession session = it.next();
+            if (!session.completing && now - session.lastActive > sessionTtl) {
+                it.remove();
+                try {
+                    Files.deleteIfExists(session.partFile);
+                } catch (IOException e) {
+                    log.warn("删除过期分片文件失败: {}", session.partFile, e);
+                }
+                log.info("分片上传会话已过期: {}", session.uploadId);
+            }
+        }
+    }
+
+    private UploadSession getSession(String uploadId, String ownerId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new BusinessException(404, "上传会话不存在或已过期");
+        }
+        if (!Objects.equals(session.ownerId, ownerId)) {
+            throw new BusinessException(403, "无权访问此上传会话");
+        }
+        return session;
+    }
+
+    private int countSessions(String ownerId) {
+        int count = 0;
+        for (UploadSession session : sessions.values()) {
+            if (session.ownerId.equals(ownerId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private ChunkedUploadDTO toDTO(UploadSession session) {
+        ChunkedUploadDTO dto = new ChunkedUploadDTO();
+        dto.setUploadId(session.uploadId);
+        dto.setFileName(session.fileName);
+        dto.setTotalSize(session.totalSize);
+        dto.setChunkSize(session.chunkSize);
+        dto.setTotalChunks(session.totalChunks);
+        List<Integer> missing = new ArrayList<>();
+        synchronized (session) {
+            dto.setReceivedChunks(session.received.cardinality());
+            for (int i = session.received.nextClearBit(0); i < session.totalChunks; i = session.received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+        }
+        dto.setMissingChunks(missing);
+        dto.setExpireAt(session.lastActive + sessionTtl);
+        return dto;
+    }
+
+    private static class UploadSession {
+        final String uploadId;
+        final String ownerId;
+        final String fileName;
+        final String extension;
+        final long totalSize;
+        final int chunkSize;
+        final int totalChunks;
+        final Path partFile;
+        final BitSet received;
+        volatile boolean completing; // 正在合并保存，在 session 锁内检查并设置
+        int writers; // 正在写入的分片数，在 session 锁内读写
+        volatile long lastActive;
+
+        UploadSession(String uploadId, String ownerId, String fileName, String extension,
+                      long totalSize, int chunkSize, int totalChunks, Path partFile) {
+            this.uploadId = uploadId;
+            this.ownerId = ownerId;
+            this.fileName = fileName;
+            this.extension = extension;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.totalChunks = totalChunks;
+            this.partFile = partFile;
+            this.received = new BitSet(totalChunks);
+            this.lastActive = System.currentTimeMillis();
+        }
+
+        void touch() {
+            lastActive = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.cshp.product.service.impl;
+
+import com.cshp.common.exception.BusinessException;
+import com.cshp.product.component.ImageVariantGenerator;
+import com.cshp.product.component.UploadCatalog;
+import com.cshp.product.dto.StoredFileDTO;
+import com.cshp.product.entity.FileBlob;
+import com.cshp.product.entity.FileBlobRef;
+import com.cshp.product.mapper.FileBlobMapper;
+import com.cshp.product.mapper.FileBlobRefMapper;
+import com.cshp.product.service.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * 上传文件存储
+ * dated 模式：按 yyyy/MM/dd 目录存放，文件名为 UUID
+ * content 模式：按内容 SHA-256 存放在 sha256/ab/cd/ 目录，相同内容只存一份，按引用数删除；
+ * 每次上传在 file_blob_ref 记录一条属于上传者的引用，删除时只能减少自己的引用
+ * 删除时按路径前缀判断存储方式，切换模式后旧文件仍可正常删除
+ */
+@Slf4j
+@Service
+public class FileStorageServiceImpl implements FileStorageService {
+
+    public static final String CONTENT_PREFIX = "sha256/";
+
+    private static final String MODE_CONTENT = "content";
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.upload.storage-mode:dated}")
+    private String storageMode;
+
+    @Autowired
+    private FileBlobMapper fileBlobMapper;
+
+    @Autowired
+    private FileBlobRefMapper fileBlobRefMapper;
+
+    @Autowired
+    private ImageVariantGenerator imageVariantGenerator;
+
+    @Autowired
+    private UploadCatalog uploadCatalog;
+
+    /**
+     * 按哈希分段加锁，保证同一内容的写入、引用计数和删除串行执行（单实例内）
+     */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public FileStorageServiceImpl() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public StoredFileDTO store(InputStream in, String extension, String ownerId) throws IOException {
+        if (MODE_CONTENT.equalsIgnoreCase(storageMode)) {
+            return storeByContent(in, extension, ownerId);
+        }
+        return storeDated(in, extension);
+    }
+
+    @Override
+    public boolean delete(String storedPath, String ownerId) throws IOException {
+        Path file = resolve(storedPath);
+        if (!storedPath.startsWith(CONTENT_PREFIX)) {
+            if (!Files.isRegularFile(file)) {
+                return false;
+            }
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            Files.delete(file);
+            uploadCatalog.recordRemoved(storedPath, attrs.size(), attrs.lastModifiedTime().toMillis());
+            imageVariantGenerator.deleteVariants(storedPath);
+            return true;
+        }
+
+        synchronized (lockFor(hashOf(storedPath))) {
+            FileBlob blob = fileBlobMapper.selectByStoredPath(storedPath);
+            if (blob == null) {
+                return false;
+            }
+            if (fileBlobRefMapper.deleteOneOwned(blob.getId(), ownerId) == 0) {
+                throw new BusinessException(403, "无权删除此文件");
+            }
+            fileBlobMapper.decrementRef(blob.getId());
+            if (fileBlobMapper.deleteIfUnreferenced(blob.getId()) > 0) {
+                if (Files.isRegularFile(file)) {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    Files.delete(file);
+                    uploadCatalog.recordRemoved(storedPath, attrs.size(), attrs.lastModifiedTime().toMillis());
+                }
+                imageVariantGenerator.deleteVariants(storedPath);
+                log.info("文件已无引用，删除物理文件: {}", storedPath);
+            } else {
+                log.info("文件仍被引用，仅减少引用数: {}", storedPath);
+            }
+            return true;
+        }
+    }
+
+    private StoredFileDTO storeDated(InputStream in, String extension) throws IOException {
+        String dateDir = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        String fileName = UUID.randomUUID().toString() + "." + extension;
+        String storedPath = dateDir + "/" + fileName;
+
+        Path target = resolve(storedPath);
+        Files.createDirectories(target.getParent());
+        long size = Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+
+        uploadCatalog.recordAdded(storedPath, size);
+        imageVariantGenerator.submit(storedPath);
+        return result(storedPath, size, false);
+    }
+
+    private StoredFileDTO storeByContent(InputStream in, String extension, String ownerId) throws IOException {
+        Path tempDir = Paths.get(uploadPath, "tmp");
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload-", "." + extension);
+        try {
+            // 边复制边计算哈希，只读一遍输入流
+            MessageDigest digest = sha256Digest();
+            long size;
+            try (InputStream digestIn = new DigestInputStream(in, digest)) {
+                size = Files.copy(digestIn, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha256 = toHex(digest.digest());
+
+            synchronized (lockFor(sha256)) {
+                FileBlob existing = fileBlobMapper.selectBySha256(sha256);
+                if (existing != null) {
+                    Path existingFile = resolve(existing.getStoredPath());
+                    if (!Files.exists(existingFile)) {
+                        // 记录在但文件丢失时用本次内容补回
+                        Files.createDirectories(existingFile.getParent());
+                        Files.move(temp, existingFile, StandardCopyOption.ATOMIC_MOVE);
+                        uploadCatalog.recordAdded(existing.getStoredPath(), size);
+                        imageVariantGenerator.submit(existing.getStoredPath());
+                    }
+                    fileBlobMapper.incrementRef(existing.getId());
+                    addRef(existing.getId(), ownerId);
+                    log.info("文件内容已存在，复用: {}", existing.getStoredPath());
+                    return result(existing.getStoredPath(), size, true);
+                }
+
+                String storedPath = CONTENT_PREFIX + sha256.substring(0, 2) + "/" + sha256.substring(2, 4)
+                        + "/" + sha256 + "." + extension;
+                Path target = resolve(storedPath);
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+                FileBlob blob = new FileBlob();
+                blob.setSha256(sha256);
+                blob.setStoredPath(storedPath);
+                blob.setSize(size);
+                blob.setRefCount(1);
+                blob.setCreateTime(LocalDateTime.now());
+                blob.setUpdateTime(LocalDateTime.now());
+                try {
+                    fileBlobMapper.insert(blob);
+                } catch (DuplicateKeyException e) {
+                    // 其他实例同时写入了相同内容
+                    FileBlob concurrent = fileBlobMapper.selectBySha256(sha256);
+                    fileBlobMapper.incrementRef(concurrent.getId());
+                    addRef(concurrent.getId(), ownerId);
+                    return result(concurrent.getStoredPath(), size, true);
+                }
+                addRef(blob.getId(), ownerId);
+                uploadCatalog.recordAdded(storedPath, size);
+                imageVariantGenerator.submit(storedPath);
+                return result(storedPath, size, false);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void addRef(Long blobId, String ownerId) {
+        FileBlobRef ref = new FileBlobRef();
+        ref.setBlobId(blobId);
+        ref.setOwnerId(ownerId);
+        ref.setCreateTime(LocalDateTime.now());
+        fileBlobRefMapper.insert(ref);
+    }
+
+    /**
+     * 解析为上传目录下的绝对路径，拒绝跳出上传目录的路径
+     */
+    private Path resolve(String storedPath) {
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        Path resolved = root.resolve(storedPath).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new BusinessException(400, "非法的文件路径");
+        }
+        return resolved;
+    }
+
+    private StoredFileDTO result(String storedPath, long size, boolean duplicate) {
+        StoredFileDTO dto = new StoredFileDTO();
+        dto.setFileName(storedPath.substring(storedPath.lastIndexOf('/') + 1));
+        dto.setStoredPath(storedPath);
+        dto.setSize(size);
+        dto.setDuplicate(duplicate);
+        return dto;
+    }
+
+    private Object lockFor(String sha256) {
+        return locks[(sha256.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private String hashOf(String storedPath) {
+        String fileName = storedPath.substring(storedPath.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    private MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
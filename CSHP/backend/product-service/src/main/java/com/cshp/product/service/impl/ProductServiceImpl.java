@@ -1,27 +1,83 @@
 package com.cshp.product.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.cshp.common.exception.BusinessException;
+import com.cshp.common.result.CursorPage;
+import com.cshp.common.util.CursorUtil;
+import com.cshp.product.component.CategoryFacets;
+import com.cshp.product.component.ProductCache;
+import com.cshp.product.component.ProductSearchIndex;
+import com.cshp.product.component.TrendingTracker;
+import com.cshp.product.component.ViewCountBuffer;
+import com.cshp.product.dto.CategorySummaryDTO;
+import com.cshp.product.dto.ProductBatchDTO;
+import com.cshp.product.dto.ProductBulkResultDTO;
+import com.cshp.product.dto.ProductCardDTO;
 import com.cshp.product.dto.ProductCreateDTO;
 import com.cshp.product.dto.ProductDTO;
+import com.cshp.product.dto.ProductFilterDTO;
+import com.cshp.product.dto.TrendingProductDTO;
 import com.cshp.product.entity.Product;
+import com.cshp.product.entity.ProductOutbox;
+import com.cshp.product.event.ProductChangedEvent;
 import com.cshp.product.mapper.ProductMapper;
+import com.cshp.product.mapper.ProductOutboxMapper;
 import com.cshp.product.service.ProductService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static final int DEFAULT_TRENDING_LIMIT = 10;
+
+    private static final String SORT_NEWEST = "newest";
+    private static final String SORT_PRICE_ASC = "price_asc";
+    private static final String SORT_PRICE_DESC = "price_desc";
+    private static final String SORT_POPULAR = "popular";
+
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private ProductOutboxMapper outboxMapper;
+
+    @Autowired
+    private ViewCountBuffer viewCountBuffer;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private CategoryFacets categoryFacets;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional
     public ProductDTO createProduct(ProductCreateDTO dto, String sellerId) {
@@ -36,6 +92,7 @@ public class ProductServiceImpl implements ProductService {
         product.setUpdateTime(LocalDateTime.now());
         
         productMapper.insert(product);
+        publishChange(product.getId(), ProductChangedEvent.Type.CREATED);
         
         return convertToDTO(product);
     }
@@ -44,22 +101,27 @@ public class ProductServiceImpl implements ProductService {
     public ProductDTO getProductById(Long id) {
         ProductDTO dto = getProductDetail(id);
         incrementViewCount(id);
+        // 加上尚未写回数据库的浏览量，保证展示值不回退
+        long pending = viewCountBuffer.getPending(id);
+        int persisted = dto.getViewCount() == null ? 0 : dto.getViewCount();
+        dto.setViewCount((int) (persisted + pending));
         return dto;
     }
 
     @Override
-    public List<ProductDTO> getAllProducts() {
-        QueryWrapper<Product> wrapper = new QueryWrapper<>();
-        wrapper.eq("status", 0);
-        wrapper.orderByDesc("create_time");
-        List<Product> products = productMapper.selectList(wrapper);
-        return products.stream().map(this::convertToDTO).collect(Collectors.toList());
+    public CursorPage<ProductCardDTO> getAllProducts(String cursor, Integer size) {
+        int pageSize = CursorUtil.normalizeSize(size);
+        CursorUtil.Cursor c = CursorUtil.decode(cursor);
+        List<ProductCardDTO> cards = productMapper.selectActiveCards(c.getTime(), c.getId(), pageSize + 1);
+        return toCardPage(cards, pageSize);
     }
 
     @Override
-    public List<ProductDTO> getProductsBySellerId(String sellerId) {
-        List<Product> products = productMapper.selectBySellerId(sellerId);
-        return products.stream().map(this::convertToDTO).collect(Collectors.toList());
+    public CursorPage<ProductDTO> getProductsBySellerId(String sellerId, String cursor, Integer size) {
+        int pageSize = CursorUtil.normalizeSize(size);
+        CursorUtil.Cursor c = CursorUtil.decode(cursor);
+        List<Product> products = productMapper.selectBySellerId(sellerId, c.getTime(), c.getId(), pageSize + 1);
+        return toPage(products, pageSize);
     }
 
     @Override
@@ -83,6 +145,7 @@ public class ProductServiceImpl implements ProductService {
         product.setUpdateTime(LocalDateTime.now());
         
         productMapper.updateById(product);
+        publishChange(id, ProductChangedEvent.Type.UPDATED);
         return convertToDTO(product);
     }
 
@@ -97,91 +160,451 @@ public class ProductServiceImpl implements ProductService {
             throw new BusinessException("无权删除此商品");
         }
         productMapper.deleteById(id);
+        publishChange(id, ProductChangedEvent.Type.DELETED);
     }
 
     @Override
     @Transactional
     public void updateProductStatus(Long id, Integer status, String sellerId) {
-        Product product = productMapper.selectById(id);
-        if (product == null) {
-            throw new BusinessException("商品不存在");
+        checkSellerStatus(status);
+        // 已售出由下单流程设置，卖家不能把已售出的商品改回在售或下架，否则预留记录仍被已付款订单占有
+        if (productMapper.compareAndSetStatus(id, null, 1, status, sellerId) == 0) {
+            throw casFailure(id, sellerId, "无权修改此商品状态");
         }
-        if (!product.getSellerId().equals(sellerId)) {
-            throw new BusinessException("无权修改此商品状态");
-        }
-        product.setStatus(status);
-        product.setUpdateTime(LocalDateTime.now());
-        productMapper.updateById(product);
+        publishChange(id, ProductChangedEvent.Type.STATUS_CHANGED);
     }
 
     @Override
     @Transactional
     public void updateProductStatusInternal(Long id, Integer status) {
-        Product product = productMapper.selectById(id);
-        if (product == null) {
-            throw new BusinessException("商品不存在");
+        // 订单退款、取消的补偿路径，需要无条件恢复在售
+        checkStatus(status);
+        if (productMapper.compareAndSetStatus(id, null, null, status, null) == 0) {
+            throw casFailure(id, null, null);
         }
-        product.setStatus(status);
-        product.setUpdateTime(LocalDateTime.now());
-        productMapper.updateById(product);
+        publishChange(id, ProductChangedEvent.Type.STATUS_CHANGED);
     }
 
     @Override
     @Transactional
-    public void updateProductShipped(Long id, Integer shipped, String sellerId) {
-        Product product = productMapper.selectById(id);
-        if (product == null) {
-            throw new BusinessException("商品不存在");
+    public void compareAndSetStatus(Long id, Integer expectedStatus, Integer status) {
+        checkStatus(status);
+        if (productMapper.compareAndSetStatus(id, expectedStatus, null, status, null) == 0) {
+            throw casFailure(id, null, null);
         }
-        if (!product.getSellerId().equals(sellerId)) {
-            throw new BusinessException("无权修改此商品状态");
+        publishChange(id, ProductChangedEvent.Type.STATUS_CHANGED);
+    }
+
+    @Override
+    @Transactional
+    public void updateProductShipped(Long id, Integer shipped, String sellerId) {
+        checkShipped(shipped);
+        // 期望当前是相反的值，重复提交或状态已被订单流程修改时返回 409
+        if (productMapper.compareAndSetShipped(id, 1 - shipped, shipped, sellerId) == 0) {
+            throw casFailure(id, sellerId, "无权修改此商品状态");
         }
-        product.setShipped(shipped);
-        product.setUpdateTime(LocalDateTime.now());
-        productMapper.updateById(product);
+        publishChange(id, ProductChangedEvent.Type.SHIPPED_CHANGED);
     }
 
     @Override
     @Transactional
     public void updateProductShippedInternal(Long id, Integer shipped) {
-        Product product = productMapper.selectById(id);
-        if (product == null) {
-            throw new BusinessException("商品不存在");
+        checkShipped(shipped);
+        if (productMapper.compareAndSetShipped(id, null, shipped, null) == 0) {
+            throw casFailure(id, null, null);
         }
-        product.setShipped(shipped);
-        product.setUpdateTime(LocalDateTime.now());
-        productMapper.updateById(product);
+        publishChange(id, ProductChangedEvent.Type.SHIPPED_CHANGED);
     }
 
     @Override
-    public List<ProductDTO> searchProducts(String keyword) {
-        List<Product> products = productMapper.selectByKeyword(keyword);
-        return products.stream().map(this::convertToDTO).collect(Collectors.toList());
+    @Transactional
+    public ProductBulkResultDTO bulkUpdateStatus(List<Long> ids, Integer status, String sellerId) {
+        if (status == null) {
+            throw new BusinessException(400, "状态不能为空");
+        }
+        checkSellerStatus(status);
+        return bulk(ids, sellerId, ProductChangedEvent.Type.STATUS_CHANGED,
+                owned -> productMapper.selectIdsByStatus(owned, 1),
+                owned -> productMapper.updateStatusBySeller(sellerId, owned, status));
     }
 
     @Override
-    public List<ProductDTO> getProductsByCategory(String category) {
-        List<Product> products = productMapper.selectByCategory(category);
-        return products.stream().map(this::convertToDTO).collect(Collectors.toList());
+    @Transactional
+    public ProductBulkResultDTO bulkUpdateShipped(List<Long> ids, Integer shipped, String sellerId) {
+        if (shipped == null) {
+            throw new BusinessException(400, "发货状态不能为空");
+        }
+        checkShipped(shipped);
+        return bulk(ids, sellerId, ProductChangedEvent.Type.SHIPPED_CHANGED, null,
+                owned -> productMapper.updateShippedBySeller(sellerId, owned, shipped));
     }
 
     @Override
     @Transactional
-    public void incrementViewCount(Long id) {
-        Product product = productMapper.selectById(id);
-        if (product != null) {
-            product.setViewCount(product.getViewCount() + 1);
-            productMapper.updateById(product);
+    public ProductBulkResultDTO bulkDelete(List<Long> ids, String sellerId) {
+        return bulk(ids, sellerId, ProductChangedEvent.Type.DELETED, null,
+                owned -> productMapper.deleteBySeller(sellerId, owned));
+    }
+
+    @Override
+    public CursorPage<ProductCardDTO> searchProducts(String keyword, String cursor, Integer size) {
+        int pageSize = CursorUtil.normalizeSize(size);
+        // 回退查询签发时间游标、索引签发偏移量游标，翻页期间索引就绪状态变化时，
+        // 另一种方式的游标无法续接，从第一页重新开始
+        boolean offsetCursor = CursorUtil.isOffset(cursor);
+        if (!productSearchIndex.isReady()) {
+            // 索引构建完成前回退到数据库模糊查询
+            CursorUtil.Cursor c = CursorUtil.decode(offsetCursor ? null : cursor);
+            List<ProductCardDTO> cards = productMapper.selectByKeyword(keyword, c.getTime(), c.getId(), pageSize + 1);
+            return toCardPage(cards, pageSize);
+        }
+
+        int offset = 0;
+        if (offsetCursor) {
+            offset = CursorUtil.decodeOffset(cursor);
+        } else {
+            // 仍校验游标格式，格式不正确时照常返回 400
+            CursorUtil.decode(cursor);
         }
+        List<Long> ids = productSearchIndex.search(keyword, offset, pageSize + 1);
+        boolean hasMore = ids.size() > pageSize;
+        List<Long> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+        if (pageIds.isEmpty()) {
+            return CursorPage.empty();
+        }
+
+        // 按索引给出的排序回填商品，过滤掉索引尚未同步的非在售商品
+        Map<Long, ProductCardDTO> cardMap = productMapper.selectCardsByIds(pageIds).stream()
+                .collect(Collectors.toMap(ProductCardDTO::getId, Function.identity()));
+        List<ProductCardDTO> records = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            ProductCardDTO card = cardMap.get(id);
+            if (card != null && card.getStatus() != null && card.getStatus() == 0) {
+                records.add(card);
+            }
+        }
+        String nextCursor = hasMore ? CursorUtil.encodeOffset(offset + pageSize) : null;
+        return new CursorPage<>(records, nextCursor);
+    }
+
+    @Override
+    public CursorPage<ProductCardDTO> getProductsByCategory(String category, String cursor, Integer size) {
+        int pageSize = CursorUtil.normalizeSize(size);
+        CursorUtil.Cursor c = CursorUtil.decode(cursor);
+        List<ProductCardDTO> cards = productMapper.selectByCategory(category, c.getTime(), c.getId(), pageSize + 1);
+        return toCardPage(cards, pageSize);
+    }
+
+    @Override
+    public List<CategorySummaryDTO> getCategorySummary() {
+        return categoryFacets.getSummary();
+    }
+
+    @Override
+    public CursorPage<ProductCardDTO> filterProducts(ProductFilterDTO filter, String cursor, Integer size,
+                                                     String currentUserId) {
+        int pageSize = CursorUtil.normalizeSize(size);
+        String sort = filter.getSort() == null || filter.getSort().isEmpty() ? SORT_NEWEST : filter.getSort();
+        if (!SORT_NEWEST.equals(sort) && !SORT_PRICE_ASC.equals(sort)
+                && !SORT_PRICE_DESC.equals(sort) && !SORT_POPULAR.equals(sort)) {
+            throw new BusinessException(400, "不支持的排序方式: " + sort);
+        }
+        filter.setSort(sort);
+        // 公开筛选只列在售商品，已售出和下架的商品只在卖家自己的 /my-sell 中可见
+        if (filter.getStatus() == null) {
+            filter.setStatus(0);
+        } else if (filter.getStatus() != 0) {
+            throw new BusinessException(400, "只能筛选在售商品");
+        }
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new BusinessException(400, "最低价不能高于最高价");
+        }
+        String excludeSellerId = Boolean.TRUE.equals(filter.getExcludeMine()) ? currentUserId : null;
+
+        LocalDateTime cursorTime = null;
+        BigDecimal cursorPrice = null;
+        Long cursorId = null;
+        int offset = 0;
+        if (SORT_NEWEST.equals(sort)) {
+            CursorUtil.Cursor c = CursorUtil.decode(cursor);
+            cursorTime = c.getTime();
+            cursorId = c.getId();
+        } else if (SORT_POPULAR.equals(sort)) {
+            // 浏览量由 ViewCountBuffer 定期回写，排序键在翻页之间会变化，不能作为键集游标，按偏移量翻页
+            offset = CursorUtil.decodeOffset(cursor);
+        } else {
+            CursorUtil.KeyCursor c = CursorUtil.decodeKey(cursor);
+            cursorId = c.getId();
+            try {
+                if (c.getKey() != null) {
+                    cursorPrice = new BigDecimal(c.getKey());
+                }
+            } catch (NumberFormatException e) {
+                throw new BusinessException(400, "无效的分页游标");
+            }
+        }
+
+        List<ProductCardDTO> cards = productMapper.selectFiltered(filter, excludeSellerId,
+                cursorTime, cursorPrice, cursorId, offset, pageSize + 1);
+        boolean hasMore = cards.size() > pageSize;
+        List<ProductCardDTO> records = hasMore ? new ArrayList<>(cards.subList(0, pageSize)) : cards;
+        String nextCursor = null;
+        if (hasMore) {
+            ProductCardDTO last = records.get(records.size() - 1);
+            if (SORT_NEWEST.equals(sort)) {
+                nextCursor = CursorUtil.encode(last.getCreateTime(), last.getId());
+            } else if (SORT_POPULAR.equals(sort)) {
+                nextCursor = CursorUtil.encodeOffset(offset + pageSize);
+            } else {
+                nextCursor = CursorUtil.encodeKey(last.getPrice().toPlainString(), last.getId());
+            }
+        }
+        return new CursorPage<>(records, nextCursor);
+    }
+
+    @Override
+    public List<TrendingProductDTO> getTrendingProducts(String window, Integer limit) {
+        TrendingTracker.Window w = window == null ? TrendingTracker.Window.HOUR : TrendingTracker.Window.of(window);
+        if (w == null) {
+            throw new BusinessException(400, "不支持的时间窗口: " + window);
+        }
+        int size = limit == null || limit <= 0 ? DEFAULT_TRENDING_LIMIT : Math.min(limit, MAX_BATCH_SIZE);
+        List<long[]> top = trendingTracker.getTop(w, size);
+        if (top.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 热门商品通常刚被浏览过，详情基本都在缓存中，未命中的合并为一次批量查询
+        List<Long> ids = new ArrayList<>(top.size());
+        for (long[] item : top) {
+            ids.add(item[0]);
+        }
+        Map<Long, ProductDTO> products = new HashMap<>();
+        for (ProductDTO product : getProductDetails(ids).getProducts()) {
+            products.put(product.getId(), product);
+        }
+
+        List<TrendingProductDTO> result = new ArrayList<>(top.size());
+        for (long[] item : top) {
+            ProductDTO product = products.get(item[0]);
+            if (product == null || product.getStatus() == null || product.getStatus() != 0) {
+                continue;
+            }
+            TrendingProductDTO dto = new TrendingProductDTO();
+            dto.setId(product.getId());
+            dto.setTitle(product.getTitle());
+            dto.setPrice(product.getPrice());
+            dto.setCategory(product.getCategory());
+            dto.setCoverImage(firstImage(product.getImages()));
+            dto.setViews(item[1]);
+            result.add(dto);
+        }
+        return result;
+    }
+
+    @Override
+    public void incrementViewCount(Long id) {
+        // 只记入内存缓冲，由 ViewCountBuffer 定时批量写回
+        viewCountBuffer.increment(id);
+        trendingTracker.record(id);
     }
 
     @Override
     public ProductDTO getProductDetail(Long id) {
-        Product product = productMapper.selectById(id);
-        if (product == null) {
-            throw new BusinessException("商品不存在");
+        return productCache.get(id, key -> {
+            Product product = productMapper.selectById(key);
+            if (product == null) {
+                throw new BusinessException("商品不存在");
+            }
+            return convertToDTO(product);
+        });
+    }
+
+    @Override
+    public ProductBatchDTO getProductDetails(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BusinessException(400, "商品ID不能为空");
         }
-        return convertToDTO(product);
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(400, "一次最多查询 " + MAX_BATCH_SIZE + " 个商品");
+        }
+
+        // 先取缓存，未命中的合并成一次 selectBatchIds
+        Map<Long, ProductDTO> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : distinctIds) {
+            ProductDTO cached = productCache.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            long invalidationCount = productCache.invalidationCount();
+            for (Product product : productMapper.selectBatchIds(misses)) {
+                ProductDTO dto = convertToDTO(product);
+                productCache.putIfNotInvalidated(dto, invalidationCount);
+                found.put(product.getId(), dto);
+            }
+        }
+
+        List<ProductDTO> products = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            ProductDTO dto = found.get(id);
+            if (dto != null) {
+                products.add(dto);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        ProductBatchDTO result = new ProductBatchDTO();
+        result.setProducts(products);
+        result.setMissingIds(missingIds);
+        return result;
+    }
+
+    /**
+     * 写入发件箱并发布商品变更事件：发件箱与商品修改同一事务提交，供其他服务按偏移量订阅；
+     * 缓存等本地监听方在事务提交后处理
+     */
+    private void publishChange(Long id, ProductChangedEvent.Type type) {
+        publishChanges(Collections.singletonList(id), type);
+    }
+
+    private void publishChanges(List<Long> ids, ProductChangedEvent.Type type) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<ProductOutbox> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductOutbox row = new ProductOutbox();
+            row.setProductId(id);
+            row.setEventType(type.name());
+            row.setCreateTime(LocalDateTime.now());
+            rows.add(row);
+        }
+        outboxMapper.insertBatch(rows);
+        for (Long id : ids) {
+            eventPublisher.publishEvent(new ProductChangedEvent(id, type));
+        }
+    }
+
+    /**
+     * 批量操作：锁定属于卖家的商品后一条语句完成修改，其余ID再查一次区分不存在和无权限
+     * conflicts 不为空时从已锁定的商品中找出当前状态不允许此操作的，这些商品不修改，按 409 返回
+     */
+    private ProductBulkResultDTO bulk(List<Long> ids, String sellerId, ProductChangedEvent.Type type,
+                                      Function<List<Long>, List<Long>> conflicts,
+                                      Consumer<List<Long>> action) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BusinessException(400, "商品ID不能为空");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(400, "一次最多操作 " + MAX_BATCH_SIZE + " 个商品");
+        }
+
+        Set<Long> owned = new HashSet<>(productMapper.selectOwnedIdsForUpdate(sellerId, distinctIds));
+        Set<Long> existing = Collections.emptySet();
+        if (owned.size() < distinctIds.size()) {
+            List<Long> others = new ArrayList<>(distinctIds);
+            others.removeAll(owned);
+            existing = new HashSet<>(productMapper.selectExistingIds(others));
+        }
+        Set<Long> conflicted = Collections.emptySet();
+        if (conflicts != null && !owned.isEmpty()) {
+            conflicted = new HashSet<>(conflicts.apply(new ArrayList<>(owned)));
+            owned.removeAll(conflicted);
+        }
+        if (!owned.isEmpty()) {
+            action.accept(new ArrayList<>(owned));
+        }
+
+        List<ProductBulkResultDTO.Item> results = new ArrayList<>(distinctIds.size());
+        List<Long> changed = new ArrayList<>(owned.size());
+        for (Long id : distinctIds) {
+            ProductBulkResultDTO.Item item = new ProductBulkResultDTO.Item();
+            item.setId(id);
+            if (owned.contains(id)) {
+                item.setSuccess(true);
+                item.setCode(200);
+                changed.add(id);
+            } else if (conflicted.contains(id)) {
+                item.setSuccess(false);
+                item.setCode(409);
+                item.setMessage("商品已售出，不能修改状态");
+            } else if (existing.contains(id)) {
+                item.setSuccess(false);
+                item.setCode(403);
+                item.setMessage("无权操作此商品");
+            } else {
+                item.setSuccess(false);
+                item.setCode(404);
+                item.setMessage("商品不存在");
+            }
+            results.add(item);
+        }
+        publishChanges(changed, type);
+
+        ProductBulkResultDTO result = new ProductBulkResultDTO();
+        result.setSuccessCount(owned.size());
+        result.setResults(results);
+        return result;
+    }
+
+    private CursorPage<ProductDTO> toPage(List<Product> products, int pageSize) {
+        return CursorPage.of(products, pageSize, Product::getCreateTime, Product::getId, this::convertToDTO);
+    }
+
+    private CursorPage<ProductCardDTO> toCardPage(List<ProductCardDTO> cards, int pageSize) {
+        return CursorPage.of(cards, pageSize, ProductCardDTO::getCreateTime, ProductCardDTO::getId, Function.identity());
+    }
+
+    /**
+     * 条件更新没有命中时再查一次，区分商品不存在、无权限和状态已变化
+     */
+    /**
+     * 卖家只能上架（0）或下架（2），已售出由下单流程设置
+     */
+    private void checkSellerStatus(Integer status) {
+        if (status == null || (status != 0 && status != 2)) {
+            throw new BusinessException(400, "不支持的商品状态: " + status);
+        }
+    }
+
+    private void checkStatus(Integer status) {
+        if (status == null || status < 0 || status > 2) {
+            throw new BusinessException(400, "不支持的商品状态: " + status);
+        }
+    }
+
+    private void checkShipped(Integer shipped) {
+        if (shipped == null || (shipped != 0 && shipped != 1)) {
+            throw new BusinessException(400, "不支持的发货状态: " + shipped);
+        }
+    }
+
+    private BusinessException casFailure(Long id, String sellerId, String forbiddenMessage) {
+        Product current = productMapper.selectStateById(id);
+        if (current == null) {
+            return new BusinessException(404, "商品不存在");
+        }
+        if (sellerId != null && !sellerId.equals(current.getSellerId())) {
+            return new BusinessException(403, forbiddenMessage);
+        }
+        return new BusinessException(409, "商品状态已变化，请刷新后重试");
+    }
+
+    private String firstImage(String images) {
+        if (images == null || images.trim().isEmpty()) {
+            return null;
+        }
+        String first = images.split(",")[0].trim();
+        return first.isEmpty() ? null : first;
     }
 
     private ProductDTO convertToDTO(Product product) {
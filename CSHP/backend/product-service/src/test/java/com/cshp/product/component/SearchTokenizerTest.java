@@ -0,0 +1,33 @@
+package com.cshp.product.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTokenizerTest {
+
+    @Test
+    void shouldSplitLatinWordsAndHanBigrams() {
+        List<String> tokens = SearchTokenizer.tokenizeForQuery("二手手机 iPhone13");
+
+        assertEquals(Arrays.asList("二手", "手手", "手机", "iphone13"), tokens);
+    }
+
+    @Test
+    void shouldIndexHanUnigramsForSingleCharacterQueries() {
+        List<String> indexed = SearchTokenizer.tokenizeForIndex("教材书");
+
+        assertTrue(indexed.contains("书"));
+        assertTrue(indexed.contains("教材"));
+        assertEquals(Arrays.asList("书"), SearchTokenizer.tokenizeForQuery("书"));
+    }
+
+    @Test
+    void shouldIgnorePunctuation() {
+        assertTrue(SearchTokenizer.tokenizeForQuery("，。!?").isEmpty());
+        assertTrue(SearchTokenizer.tokenizeForQuery(null).isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package com.cshp.product.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingTrackerTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static final long T0 = 1_700_000_000_000L / MINUTE * MINUTE;
+
+    private TrendingTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new TrendingTracker();
+        ReflectionTestUtils.setField(tracker, "topK", 2);
+    }
+
+    @Test
+    void shouldRankByViewsAndKeepTopK() {
+        record(1L, 3);
+        record(2L, 5);
+        record(3L, 1);
+        tracker.advance(T0);
+
+        List<long[]> top = tracker.getTop(TrendingTracker.Window.HOUR, 10);
+        assertEquals(2, top.size());
+        assertArrayEquals(new long[]{2L, 5L}, top.get(0));
+        assertArrayEquals(new long[]{1L, 3L}, top.get(1));
+    }
+
+    @Test
+    void shouldMoveOnlyChangedProductsBetweenRefreshes() {
+        record(1L, 3);
+        record(2L, 5);
+        tracker.advance(T0);
+        record(1L, 4);
+        tracker.advance(T0 + 10_000);
+
+        List<long[]> top = tracker.getTop(TrendingTracker.Window.HOUR, 10);
+        assertArrayEquals(new long[]{1L, 7L}, top.get(0));
+        assertArrayEquals(new long[]{2L, 5L}, top.get(1));
+    }
+
+    @Test
+    void shouldSlideViewsOutOfTheHourButKeepThemForTheDay() {
+        record(1L, 3);
+        tracker.advance(T0);
+        record(2L, 1);
+        tracker.advance(T0 + 30 * MINUTE);
+
+        tracker.advance(T0 + 60 * MINUTE);
+        List<long[]> hour = tracker.getTop(TrendingTracker.Window.HOUR, 10);
+        assertEquals(1, hour.size());
+        assertArrayEquals(new long[]{2L, 1L}, hour.get(0));
+        assertArrayEquals(new long[]{1L, 3L}, tracker.getTop(TrendingTracker.Window.DAY, 10).get(0));
+
+        tracker.advance(T0 + 24 * 60 * MINUTE);
+        List<long[]> day = tracker.getTop(TrendingTracker.Window.DAY, 10);
+        assertEquals(1, day.size());
+        assertArrayEquals(new long[]{2L, 1L}, day.get(0));
+    }
+
+    @Test
+    void shouldNotLoseViewsRecordedDuringRefresh() throws Exception {
+        int threads = 4;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    for (int n = 0; n < perThread; n++) {
+                        tracker.record(1L);
+                    }
+                }));
+            }
+            Future<?> refresher = pool.submit(() -> {
+                while (running.get()) {
+                    tracker.advance(T0);
+                }
+            });
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            running.set(false);
+            refresher.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        tracker.advance(T0);
+
+        assertEquals((long) threads * perThread, tracker.getTop(TrendingTracker.Window.HOUR, 1).get(0)[1]);
+    }
+
+    private void record(long productId, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(productId);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.cshp.product.component;
+
+import com.cshp.product.mapper.ProductMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class ViewCountBufferTest {
+
+    private ProductMapper productMapper;
+
+    private ViewCountBuffer buffer;
+
+    private final AtomicLong written = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        productMapper = mock(ProductMapper.class);
+        when(productMapper.incrementViewCounts(anyMap())).thenAnswer(inv -> {
+            Map<Long, Long> deltas = inv.getArgument(0);
+            deltas.values().forEach(written::addAndGet);
+            return deltas.size();
+        });
+        buffer = new ViewCountBuffer();
+        ReflectionTestUtils.setField(buffer, "productMapper", productMapper);
+        ReflectionTestUtils.setField(buffer, "productCache", mock(ProductCache.class));
+        ReflectionTestUtils.setField(buffer, "flushBatchSize", 2);
+    }
+
+    @Test
+    void shouldFlushPendingViewsInBatches() {
+        buffer.increment(1L);
+        buffer.increment(1L);
+        buffer.increment(2L);
+        buffer.increment(3L);
+        assertEquals(2, buffer.getPending(1L));
+        assertEquals(4, buffer.getPendingTotal());
+
+        buffer.flush();
+
+        verify(productMapper, times(2)).incrementViewCounts(anyMap());
+        assertEquals(4, written.get());
+        assertEquals(0, buffer.getPendingTotal());
+        assertEquals(0, buffer.getTrackedCount());
+    }
+
+    @Test
+    void shouldKeepViewsWhenWriteBackFails() {
+        when(productMapper.incrementViewCounts(anyMap())).thenThrow(new IllegalStateException("db down"));
+        buffer.increment(1L);
+        buffer.increment(1L);
+
+        buffer.flush();
+
+        assertEquals(2, buffer.getPending(1L));
+    }
+
+    @Test
+    void shouldNotLoseViewsRecordedDuringFlush() throws Exception {
+        int threads = 4;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        buffer.increment((long) (i % 3));
+                    }
+                }));
+            }
+            Thread flusher = new Thread(() -> {
+                while (!done.get()) {
+                    buffer.flush();
+                }
+            });
+            flusher.start();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            done.set(true);
+            flusher.join();
+        } finally {
+            pool.shutdownNow();
+        }
+        buffer.flush();
+
+        assertEquals((long) threads * perThread, written.get());
+    }
+}
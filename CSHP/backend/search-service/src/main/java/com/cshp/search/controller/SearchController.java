@@ -1,13 +1,12 @@
 package com.cshp.search.controller;
 
+import com.cshp.common.result.CursorPage;
 import com.cshp.common.result.Result;
 import com.cshp.search.dto.ProductDTO;
 import com.cshp.search.service.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/search")
 public class SearchController {
@@ -16,20 +15,25 @@ public class SearchController {
     private SearchService searchService;
 
     @GetMapping
-    public Result<List<ProductDTO>> search(@RequestParam String keyword) {
-        List<ProductDTO> products = searchService.search(keyword);
+    public Result<CursorPage<ProductDTO>> search(@RequestParam String keyword,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> products = searchService.search(keyword, cursor, size);
         return Result.success(products);
     }
 
     @GetMapping("/all")
-    public Result<List<ProductDTO>> getAllProducts() {
-        List<ProductDTO> products = searchService.getAllProducts();
+    public Result<CursorPage<ProductDTO>> getAllProducts(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> products = searchService.getAllProducts(cursor, size);
         return Result.success(products);
     }
 
     @GetMapping("/category/{category}")
-    public Result<List<ProductDTO>> searchByCategory(@PathVariable String category) {
-        List<ProductDTO> products = searchService.searchByCategory(category);
+    public Result<CursorPage<ProductDTO>> searchByCategory(@PathVariable String category,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        CursorPage<ProductDTO> products = searchService.searchByCategory(category, cursor, size);
         return Result.success(products);
     }
 }
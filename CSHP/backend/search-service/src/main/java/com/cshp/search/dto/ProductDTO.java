@@ -13,6 +13,7 @@ public class ProductDTO {
     private BigDecimal price;
     private String category;
     private String images;
+    private String coverImage; // 列表接口只返回封面，不返回 description 和 images
     private String sellerId;
     private String sellerName;
     private Integer status;
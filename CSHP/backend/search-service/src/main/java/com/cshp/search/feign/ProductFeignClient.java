@@ -1,5 +1,6 @@
 package com.cshp.search.feign;
 
+import com.cshp.common.result.CursorPage;
 import com.cshp.common.result.Result;
 import com.cshp.search.dto.ProductDTO;
 import org.springframework.cloud.openfeign.FeignClient;
@@ -7,17 +8,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.List;
-
 @FeignClient(name = "product-service")
 public interface ProductFeignClient {
     @GetMapping("/product/search")
-    Result<List<ProductDTO>> searchProducts(@RequestParam("keyword") String keyword);
+    Result<CursorPage<ProductDTO>> searchProducts(@RequestParam("keyword") String keyword,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "size", required = false) Integer size);
     
     @GetMapping("/product/list")
-    Result<List<ProductDTO>> getAllProducts();
+    Result<CursorPage<ProductDTO>> getAllProducts(@RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "size", required = false) Integer size);
     
     @GetMapping("/product/category/{category}")
-    Result<List<ProductDTO>> getProductsByCategory(@PathVariable("category") String category);
+    Result<CursorPage<ProductDTO>> getProductsByCategory(@PathVariable("category") String category,
+                                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                                         @RequestParam(value = "size", required = false) Integer size);
 }
 
@@ -1,14 +1,13 @@
 package com.cshp.search.service;
 
+import com.cshp.common.result.CursorPage;
 import com.cshp.search.dto.ProductDTO;
 
-import java.util.List;
-
 public interface SearchService {
-    List<ProductDTO> search(String keyword);
+    CursorPage<ProductDTO> search(String keyword, String cursor, Integer size);
     
-    List<ProductDTO> getAllProducts();
+    CursorPage<ProductDTO> getAllProducts(String cursor, Integer size);
     
-    List<ProductDTO> searchByCategory(String category);
+    CursorPage<ProductDTO> searchByCategory(String category, String cursor, Integer size);
 }
 
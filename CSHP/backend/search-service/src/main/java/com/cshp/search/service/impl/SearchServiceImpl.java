@@ -1,5 +1,6 @@
 package com.cshp.search.service.impl;
 
+import com.cshp.common.result.CursorPage;
 import com.cshp.common.result.Result;
 import com.cshp.search.dto.ProductDTO;
 import com.cshp.search.feign.ProductFeignClient;
@@ -7,9 +8,6 @@ import com.cshp.search.service.SearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 public class SearchServiceImpl implements SearchService {
@@ -17,26 +15,26 @@ public class SearchServiceImpl implements SearchService {
     private final ProductFeignClient productFeignClient;
 
     @Override
-    public List<ProductDTO> search(String keyword) {
-        Result<List<ProductDTO>> result = productFeignClient.searchProducts(keyword);
+    public CursorPage<ProductDTO> search(String keyword, String cursor, Integer size) {
+        Result<CursorPage<ProductDTO>> result = productFeignClient.searchProducts(keyword, cursor, size);
         return unwrap(result);
     }
 
     @Override
-    public List<ProductDTO> getAllProducts() {
-        Result<List<ProductDTO>> result = productFeignClient.getAllProducts();
+    public CursorPage<ProductDTO> getAllProducts(String cursor, Integer size) {
+        Result<CursorPage<ProductDTO>> result = productFeignClient.getAllProducts(cursor, size);
         return unwrap(result);
     }
 
     @Override
-    public List<ProductDTO> searchByCategory(String category) {
-        Result<List<ProductDTO>> result = productFeignClient.getProductsByCategory(category);
+    public CursorPage<ProductDTO> searchByCategory(String category, String cursor, Integer size) {
+        Result<CursorPage<ProductDTO>> result = productFeignClient.getProductsByCategory(category, cursor, size);
         return unwrap(result);
     }
 
-    private List<ProductDTO> unwrap(Result<List<ProductDTO>> result) {
+    private CursorPage<ProductDTO> unwrap(Result<CursorPage<ProductDTO>> result) {
         if (result == null || result.getCode() != 200 || result.getData() == null) {
-            return Collections.emptyList();
+            return CursorPage.empty();
         }
         return result.getData();
     }
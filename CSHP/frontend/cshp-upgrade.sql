@@ -0,0 +1,35 @@
+-- 已有数据库的升级脚本
+-- cshp.sql 用于全新建库；已经在运行的库不重建表，按顺序执行下面的语句补齐索引
+-- 库中还没有的新表（file_blob、file_blob_ref、product_outbox、order_idempotency、order_outbox、
+-- product_reservation）直接执行 cshp.sql 中对应的 CREATE TABLE，建表语句已包含全部索引，跳过下面针对该表的语句
+USE `cshp`;
+
+-- 商品列表游标分页：(create_time, id) 作为排序键，等值条件列在前
+ALTER TABLE `product`
+  ADD KEY `idx_status_ctime_id` (`status`, `create_time`, `id`),
+  ADD KEY `idx_status_category_ctime_id` (`status`, `category`, `create_time`, `id`),
+  ADD KEY `idx_seller_ctime_id` (`seller_id`, `create_time`, `id`);
+-- 组合筛选的价格、热度排序
+ALTER TABLE `product`
+  ADD KEY `idx_status_price_id` (`status`, `price`, `id`),
+  ADD KEY `idx_status_category_price_id` (`status`, `category`, `price`, `id`),
+  ADD KEY `idx_status_views_id` (`status`, `view_count`, `id`);
+-- idx_seller_ctime_id 以 seller_id 开头，原有的单列索引可以删除
+ALTER TABLE `product` DROP KEY `idx_seller_id`;
+
+-- 订单号唯一约束：添加前先确认没有重复的订单号，有重复时需先人工处理
+-- SELECT order_no, COUNT(*) FROM user_order GROUP BY order_no HAVING COUNT(*) > 1;
+ALTER TABLE `user_order` ADD UNIQUE KEY `uk_order_no` (`order_no`);
+
+-- 启动时按 id 分页扫描待付款订单
+ALTER TABLE `user_order` ADD KEY `idx_status` (`status`);
+
+-- 我的买入/我的卖出按 (create_time, id) 倒序游标分页，末尾的 status 使状态过滤也只读索引
+ALTER TABLE `user_order`
+  ADD KEY `idx_buyer_time_id` (`buyer_id`, `create_time`, `id`, `status`),
+  ADD KEY `idx_seller_time_id` (`seller_id`, `create_time`, `id`, `status`);
+-- 新索引以 buyer_id / seller_id 开头，原有的单列索引可以删除（索引不存在时跳过对应语句）
+-- ALTER TABLE `user_order` DROP KEY `idx_buyer_id`, DROP KEY `idx_seller_id`;
+
+-- 商品副作用按商品顺序投递，查询商品是否还有更早的未完成记录
+ALTER TABLE `order_outbox` ADD KEY `idx_product_state_id` (`product_id`, `state`, `id`);
@@ -31,11 +31,55 @@ CREATE TABLE `product` (
   `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
   `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`),
-  KEY `idx_seller_id` (`seller_id`)
+  -- 游标分页：(create_time, id) 作为排序键，等值条件列在前
+  KEY `idx_status_ctime_id` (`status`, `create_time`, `id`),
+  KEY `idx_status_category_ctime_id` (`status`, `category`, `create_time`, `id`),
+  KEY `idx_seller_ctime_id` (`seller_id`, `create_time`, `id`),
+  -- 组合筛选的价格、热度排序
+  KEY `idx_status_price_id` (`status`, `price`, `id`),
+  KEY `idx_status_category_price_id` (`status`, `category`, `price`, `id`),
+  KEY `idx_status_views_id` (`status`, `view_count`, `id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
-DROP TABLE IF EXISTS `order`;
-CREATE TABLE `order` (
+DROP TABLE IF EXISTS `file_blob`;
+CREATE TABLE `file_blob` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `sha256` CHAR(64) NOT NULL,
+  `stored_path` VARCHAR(255) NOT NULL,
+  `size` BIGINT NOT NULL,
+  `ref_count` INT NOT NULL DEFAULT 1,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_sha256` (`sha256`),
+  UNIQUE KEY `uk_stored_path` (`stored_path`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 内容寻址文件的引用：每次上传一条，记录上传者，删除时只能删除自己的引用
+DROP TABLE IF EXISTS `file_blob_ref`;
+CREATE TABLE `file_blob_ref` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `blob_id` BIGINT NOT NULL,
+  `owner_id` VARCHAR(32) NOT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_blob_owner` (`blob_id`, `owner_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 商品变更发件箱：与商品写操作在同一事务内写入，id 即变更流的偏移量
+DROP TABLE IF EXISTS `product_outbox`;
+CREATE TABLE `product_outbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `product_id` BIGINT NOT NULL,
+  `event_type` VARCHAR(32) NOT NULL,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 订单表，对应 order-service 的 Order 实体（@TableName("user_order")）
+DROP TABLE IF EXISTS `user_order`;
+CREATE TABLE `user_order` (
   `id` BIGINT NOT NULL AUTO_INCREMENT,
   `order_no` VARCHAR(64) NOT NULL,
   `product_id` BIGINT NOT NULL,
@@ -56,8 +100,62 @@ CREATE TABLE `order` (
   `ship_time` DATETIME,
   `complete_time` DATETIME,
   PRIMARY KEY (`id`),
-  KEY `idx_buyer_id` (`buyer_id`),
-  KEY `idx_seller_id` (`seller_id`)
+  UNIQUE KEY `uk_order_no` (`order_no`),
+  -- 启动时按 id 分页扫描待付款订单
+  KEY `idx_status` (`status`),
+  -- 我的买入/我的卖出按 (create_time, id) 倒序游标分页，末尾的 status 使状态过滤也只读索引
+  KEY `idx_buyer_time_id` (`buyer_id`, `create_time`, `id`, `status`),
+  KEY `idx_seller_time_id` (`seller_id`, `create_time`, `id`, `status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 订单接口幂等记录：Idempotency-Key 按用户唯一，state 0 为处理中占位，1 为已完成并保存响应
+DROP TABLE IF EXISTS `order_idempotency`;
+CREATE TABLE `order_idempotency` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `user_id` VARCHAR(32) NOT NULL,
+  `idem_key` VARCHAR(64) NOT NULL,
+  `fingerprint` VARCHAR(128) NOT NULL,
+  `state` TINYINT NOT NULL DEFAULT 0,
+  `response` TEXT,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  `expire_time` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_key` (`user_id`, `idem_key`),
+  KEY `idx_expire_time` (`expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 订单发件箱：订单状态变更需要同步到商品的副作用，与订单在同一事务写入，由后台异步投递
+DROP TABLE IF EXISTS `order_outbox`;
+CREATE TABLE `order_outbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `order_id` BIGINT NOT NULL,
+  `product_id` BIGINT NOT NULL,
+  `effect` VARCHAR(32) NOT NULL,
+  `state` TINYINT NOT NULL DEFAULT 0,
+  `attempts` INT NOT NULL DEFAULT 0,
+  `next_retry_time` DATETIME NOT NULL,
+  `claim_token` VARCHAR(36),
+  `last_error` VARCHAR(255),
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_state_id` (`state`, `id`),
+  -- 同一商品按 id 顺序投递，查询商品是否还有更早的未完成记录
+  KEY `idx_product_state_id` (`product_id`, `state`, `id`),
+  KEY `idx_claim_token` (`claim_token`),
+  KEY `idx_state_update_time` (`state`, `update_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 商品预留：主键保证同一商品同时只被一个订单占有，待付款订单到期后可被接管，付款后 expire_time 置空
+DROP TABLE IF EXISTS `product_reservation`;
+CREATE TABLE `product_reservation` (
+  `product_id` BIGINT NOT NULL,
+  `order_id` BIGINT NOT NULL,
+  `buyer_id` VARCHAR(32) NOT NULL,
+  `expire_time` DATETIME,
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`product_id`),
+  KEY `idx_order_id` (`order_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 DROP TABLE IF EXISTS `cart`;
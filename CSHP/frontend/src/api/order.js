@@ -1,17 +1,42 @@
 import request from './request'
 
-export const createOrder = (data) => {
+// 生成幂等键，同一次操作的重试复用同一个键
+export const newIdempotencyKey = () =>
+  `${Date.now().toString(36)}-${Math.random().toString(36).slice(2, 10)}`
+
+export const createOrder = (data, idempotencyKey) => {
   return request({
     url: '/order-service/order',
     method: 'post',
+    headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {},
+    data
+  })
+}
+
+// 购物车结算，返回每件商品的下单结果
+export const checkoutCart = (data, idempotencyKey) => {
+  return request({
+    url: '/order-service/order/checkout',
+    method: 'post',
+    headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {},
     data
   })
 }
 
-export const getMyBuyOrders = () => {
+// params: status（可选）、cursor、size，返回游标分页结果
+export const getMyBuyOrders = (params) => {
   return request({
     url: '/order-service/order/my-buy',
-    method: 'get'
+    method: 'get',
+    params
+  })
+}
+
+export const getMySellOrders = (params) => {
+  return request({
+    url: '/order-service/order/my-sell',
+    method: 'get',
+    params
   })
 }
 
@@ -25,14 +50,18 @@ export const getOrderById = (id) => {
 export const payOrder = (id) => {
   return request({
     url: `/order-service/order/${id}/pay`,
-    method: 'put'
+    method: 'put',
+    // 每个订单的状态变更只会发生一次，用订单号和操作作为幂等键即可覆盖重复点击
+    headers: { 'Idempotency-Key': `pay-${id}` }
   })
 }
 
 export const cancelOrder = (id) => {
   return request({
     url: `/order-service/order/${id}/cancel`,
-    method: 'put'
+    method: 'put',
+    // 每个订单的状态变更只会发生一次，用订单号和操作作为幂等键即可覆盖重复点击
+    headers: { 'Idempotency-Key': `cancel-${id}` }
   })
 }
 
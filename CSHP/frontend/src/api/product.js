@@ -1,10 +1,12 @@
 import request from './request'
 
-export const getProductList = () => {
+// 列表接口均为游标分页，params: { cursor, size }，返回 { records, nextCursor, hasMore }
+export const getProductList = (params) => {
   console.log('调用getProductList，将由请求拦截器自动添加认证信息')
   return request({
     url: '/product-service/product/list',
-    method: 'get'
+    method: 'get',
+    params
   })
 }
 
@@ -42,11 +44,12 @@ export const deleteProduct = (id) => {
   })
 }
 
-export const getMySellProducts = () => {
+export const getMySellProducts = (params) => {
   console.log('调用getMySellProducts，将由请求拦截器自动添加认证信息')
   return request({
     url: '/product-service/product/my-sell',
-    method: 'get'
+    method: 'get',
+    params
   })
 }
 
@@ -68,20 +71,62 @@ export const updateProductShipped = (id, shipped) => {
   })
 }
 
-export const searchProducts = (keyword) => {
+// 批量操作，返回 { successCount, results: [{ id, success, code, message }] }
+export const bulkUpdateProductStatus = (ids, status) => {
+  return request({
+    url: '/product-service/product/bulk/status',
+    method: 'put',
+    data: { ids, value: status }
+  })
+}
+
+export const bulkUpdateProductShipped = (ids, shipped) => {
+  return request({
+    url: '/product-service/product/bulk/shipped',
+    method: 'put',
+    data: { ids, value: shipped }
+  })
+}
+
+export const bulkDeleteProducts = (ids) => {
+  return request({
+    url: '/product-service/product/bulk/delete',
+    method: 'post',
+    data: { ids }
+  })
+}
+
+export const searchProducts = (keyword, params) => {
   console.log(`调用searchProducts，Keyword: ${keyword}，将由请求拦截器自动添加认证信息`)
   return request({
     url: '/product-service/product/search',
     method: 'get',
-    params: { keyword }
+    params: { keyword, ...params }
   })
 }
 
-export const getProductsByCategory = (category) => {
+export const getProductsByCategory = (category, params) => {
   console.log(`调用getProductsByCategory，Category: ${category}，将由请求拦截器自动添加认证信息`)
   return request({
     url: `/product-service/product/category/${category}`,
+    method: 'get',
+    params
+  })
+}
+
+// 各分类在售数量、最新上架时间和价格区间
+export const getCategorySummary = () => {
+  return request({
+    url: '/product-service/product/categories',
     method: 'get'
   })
 }
 
+// 组合筛选：category、minPrice、maxPrice、keyword、sort(newest|price_asc|price_desc|popular)、cursor、size
+export const filterProducts = (params) => {
+  return request({
+    url: '/product-service/product/filter',
+    method: 'get',
+    params
+  })
+}
@@ -106,9 +106,10 @@ export const deleteFile = (storedPath) => {
 /**
  * 获取图片完整URL
  * @param {string} storedPath 存储路径
+ * @param {string} [size] 图片尺寸：thumb（缩略图）、card（列表卡片）、detail（详情），不传为原图
  * @returns {string} 完整的图片访问URL
  */
-export const getImageFullUrl = (storedPath) => {
+export const getImageFullUrl = (storedPath, size) => {
   if (!storedPath) return ''
   // 移除首尾空格
   const trimmedPath = storedPath.trim()
@@ -116,15 +117,16 @@ export const getImageFullUrl = (storedPath) => {
   if (trimmedPath.startsWith('http://') || trimmedPath.startsWith('https://')) {
     return trimmedPath
   }
+  const sizeQuery = size ? `?size=${size}` : ''
   // 如果已经包含/uploads前缀，直接返回
   if (trimmedPath.startsWith('/uploads/')) {
-    return trimmedPath
+    return `${trimmedPath}${sizeQuery}`
   }
   // 如果以uploads/开头，添加斜杠前缀
   if (trimmedPath.startsWith('uploads/')) {
-    return `/${trimmedPath}`
+    return `/${trimmedPath}${sizeQuery}`
   }
   // 添加/uploads前缀
-  return `/uploads/${trimmedPath}`
+  return `/uploads/${trimmedPath}${sizeQuery}`
 }
 